@@ -0,0 +1,103 @@
+/* Copyright (C) 2026  The CDK Development Team <cdk-devel@lists.sourceforge.net>
+ *
+ * Contact: cdk-devel@lists.sourceforge.net
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 2.1
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package net.sf.cdk.tools;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Matching of ASCII patterns on the lines passed to a {@link SourceAnalyzer},
+ * working directly on the byte range of the read buffer.
+ */
+public class ByteLines {
+
+    private ByteLines() {}
+
+    /**
+     * @param s an ASCII string
+     * @return the bytes of the string, to use as pattern
+     */
+    public static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Finds the first occurrence of the pattern in [begin,end) of the buffer.
+     *
+     * @return the index of the pattern, or -1 if not found
+     */
+    public static int indexOf(ByteBuffer buffer, byte[] pattern, int begin, int end) {
+        byte first = pattern[0];
+        int last = end - pattern.length;
+        next:
+        for (int i=begin; i<=last; i++) {
+            if (buffer.get(i) != first) continue;
+            for (int j=1; j<pattern.length; j++) {
+                if (buffer.get(i + j) != pattern[j]) continue next;
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the last occurrence of the pattern in [begin,end) of the buffer.
+     *
+     * @return the index of the pattern, or -1 if not found
+     */
+    public static int lastIndexOf(ByteBuffer buffer, byte[] pattern, int begin, int end) {
+        byte first = pattern[0];
+        next:
+        for (int i=end-pattern.length; i>=begin; i--) {
+            if (buffer.get(i) != first) continue;
+            for (int j=1; j<pattern.length; j++) {
+                if (buffer.get(i + j) != pattern[j]) continue next;
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the first occurrence of the pattern in [begin,end) of the buffer,
+     * ignoring the case of ASCII letters. The pattern must be lower case.
+     *
+     * @return the index of the pattern, or -1 if not found
+     */
+    public static int indexOfIgnoreCase(ByteBuffer buffer, byte[] pattern, int begin, int end) {
+        int last = end - pattern.length;
+        next:
+        for (int i=begin; i<=last; i++) {
+            for (int j=0; j<pattern.length; j++) {
+                if (toLowerCase(buffer.get(i + j)) != pattern[j]) continue next;
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private static byte toLowerCase(byte b) {
+        return b >= 'A' && b <= 'Z' ? (byte) (b + ('a' - 'A')) : b;
+    }
+
+    /** Same as {@link Character#isWhitespace(char)} for the ASCII range. */
+    public static boolean isWhitespace(byte b) {
+        return b == ' ' || (b >= 0x09 && b <= 0x0d) || (b >= 0x1c && b <= 0x1f);
+    }
+}
@@ -0,0 +1,291 @@
+/* Copyright (C) 2026  The CDK Development Team <cdk-devel@lists.sourceforge.net>
+ *
+ * Contact: cdk-devel@lists.sourceforge.net
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 2.1
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package net.sf.cdk.tools;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Finds the <code>@cdk.module</code> and <code>@cdk.set</code> tags of a Java
+ * source file from the lines of its header, up to the first type declaration.
+ * Lines are matched in place in the read buffer, so no String is created per
+ * line. Module and set names are looked up in a small cache, as the same few
+ * names occur in every file. Optionally, the import statements are collected
+ * as well.
+ *
+ * <p>The line matching is the same as the one historically done by
+ * {@link MakeJavafilesFiles#getModuleAndSet(File)}. Instances are not thread
+ * safe; each worker thread should use its own scanner.
+ */
+class HeaderScanner implements SourceAnalyzer {
+
+    private static final byte[] JAVADOC_START     = ascii("/**");
+    private static final byte[] COMMENT_END       = ascii("*/");
+    private static final byte[] CLASS             = ascii("class");
+    private static final byte[] PUBLIC_ENUM       = ascii("public enum");
+    private static final byte[] PUBLIC_INTERFACE  = ascii("public interface");
+    private static final byte[] PUBLIC_ANNOTATION = ascii("public @interface");
+    private static final byte[] MODULE_TAG        = ascii("@cdk.module");
+    private static final byte[] SET_TAG           = ascii("@cdk.set");
+    private static final byte[] IMPORT            = ascii("import");
+    private static final byte[] STATIC            = ascii("static");
+
+    private final String  defaultModule;
+    private final boolean collectImports;
+
+    private byte[][] cachedBytes = new byte[64][];
+    private String[] cachedNames = new String[64];
+    private int      cachedCount = 0;
+
+    /** Buffer of the line being matched. */
+    private ByteBuffer buffer;
+
+    private String  module;
+    private String  set;
+    private boolean inComment;
+    private boolean complete;
+
+    private final List<String> imports = new ArrayList<String>();
+
+    /** Reader and analyzer array for {@link #scan(File)}. */
+    private SourceReader     reader;
+    private SourceAnalyzer[] self;
+
+    /**
+     * @param defaultModule  module to use when a file has no module tag
+     * @param collectImports whether to collect the import statements
+     */
+    HeaderScanner(String defaultModule, boolean collectImports) {
+        this.defaultModule = defaultModule;
+        this.collectImports = collectImports;
+    }
+
+    /**
+     * Scans the header of the given file on its own, for use outside a
+     * {@link SourcePipeline}.
+     *
+     * @param file the Java source file
+     * @return true if a type declaration was found
+     * @see #isComplete()
+     */
+    boolean scan(File file) {
+        if (reader == null) {
+            reader = new SourceReader();
+            self = new SourceAnalyzer[] { this };
+        }
+        reader.read(0, file, self);
+        return complete;
+    }
+
+    @Override
+    public void start(int index, File file) {
+        imports.clear();
+        module = defaultModule;
+        set = null;
+        inComment = false;
+        complete = false;
+    }
+
+    @Override
+    public boolean analyzeLine(ByteBuffer buffer, int begin, int end) {
+        this.buffer = buffer;
+        int state = matchLine(begin, end, inComment);
+        if (state == LINE_ERROR) return false;
+        if (state == LINE_DECLARATION) {
+            complete = true;
+            return false;
+        }
+        inComment = state == LINE_IN_COMMENT;
+        return true;
+    }
+
+    @Override
+    public void end(IOException error) {
+        buffer = null;
+        if (error != null) {
+            error.printStackTrace();
+            complete = false;
+        }
+    }
+
+    /**
+     * @return true if the last file scanned could be read, has a type
+     *         declaration, and no empty tags
+     */
+    boolean isComplete() {
+        return complete;
+    }
+
+    private static final int LINE_IN_COMMENT     = 0;
+    private static final int LINE_NOT_IN_COMMENT = 1;
+    private static final int LINE_DECLARATION    = 2;
+    private static final int LINE_ERROR          = 3;
+
+    /**
+     * Matches the line [begin,end) of the buffer, updating the module and
+     * set.
+     */
+    private int matchLine(int begin, int end, boolean inComment) {
+        int index = indexOf(JAVADOC_START, begin, end);
+        if (index != -1) {
+            inComment = indexOf(COMMENT_END, index, end) == -1;
+        } else if (indexOf(COMMENT_END, begin, end) != -1) {
+            inComment = false;
+        }
+
+        if (collectImports && !inComment) {
+            matchImport(begin, end);
+        }
+
+        if (!inComment && (indexOf(CLASS, begin, end) != -1 ||
+                           indexOf(PUBLIC_ENUM, begin, end) != -1 ||
+                           indexOf(PUBLIC_INTERFACE, begin, end) != -1 ||
+                           indexOf(PUBLIC_ANNOTATION, begin, end) != -1)) {
+            return LINE_DECLARATION;
+        }
+
+        index = indexOf(MODULE_TAG, begin, end);
+        if (index != -1) {
+            String name = readName(index + MODULE_TAG.length, end);
+            if (name == null) return LINE_ERROR;
+            module = name;
+        } else {
+            index = indexOf(SET_TAG, begin, end);
+            if (index != -1) {
+                String name = readName(index + SET_TAG.length, end);
+                if (name == null) return LINE_ERROR;
+                set = name;
+            }
+        }
+        return inComment ? LINE_IN_COMMENT : LINE_NOT_IN_COMMENT;
+    }
+
+    /**
+     * Adds the imported name if the line [begin,end) is an import statement.
+     * Static imports give the name of the member, wildcard imports end with
+     * <code>.*</code>.
+     */
+    private void matchImport(int begin, int end) {
+        int index = begin;
+        while (index < end && isWhitespace(buffer.get(index))) index++;
+        index = skipKeyword(IMPORT, index, end);
+        if (index == -1) return;
+        int afterStatic = skipKeyword(STATIC, index, end);
+        if (afterStatic != -1) index = afterStatic;
+        int nameBegin = index;
+        while (index < end && buffer.get(index) != ';' && !isWhitespace(buffer.get(index))) index++;
+        if (index == nameBegin) return;
+        byte[] bytes = new byte[index - nameBegin];
+        for (int j=0; j<bytes.length; j++) {
+            bytes[j] = buffer.get(nameBegin + j);
+        }
+        imports.add(new String(bytes, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return the index after the keyword at the given index and the
+     *         whitespace following it, or -1 if there is no such keyword
+     */
+    private int skipKeyword(byte[] keyword, int index, int end) {
+        if (end - index <= keyword.length) return -1;
+        for (int j=0; j<keyword.length; j++) {
+            if (buffer.get(index + j) != keyword[j]) return -1;
+        }
+        index += keyword.length;
+        if (!isWhitespace(buffer.get(index))) return -1;
+        while (index < end && isWhitespace(buffer.get(index))) index++;
+        return index;
+    }
+
+    /**
+     * Reads the whitespace separated word following a tag.
+     *
+     * @return the word, or null if the line ends before it
+     */
+    private String readName(int index, int end) {
+        while (index < end && isWhitespace(buffer.get(index))) index++;
+        if (index == end) return null;
+        int begin = index;
+        while (index < end && !isWhitespace(buffer.get(index))) index++;
+        return intern(begin, index);
+    }
+
+    /**
+     * Returns the cached String with the bytes [begin,end) of the buffer,
+     * creating it only the first time these bytes are seen.
+     */
+    private String intern(int begin, int end) {
+        int length = end - begin;
+        next:
+        for (int i=0; i<cachedCount; i++) {
+            byte[] bytes = cachedBytes[i];
+            if (bytes.length != length) continue;
+            for (int j=0; j<length; j++) {
+                if (bytes[j] != buffer.get(begin + j)) continue next;
+            }
+            return cachedNames[i];
+        }
+        byte[] bytes = new byte[length];
+        for (int j=0; j<length; j++) {
+            bytes[j] = buffer.get(begin + j);
+        }
+        if (cachedCount == cachedBytes.length) {
+            cachedBytes = Arrays.copyOf(cachedBytes, 2 * cachedCount);
+            cachedNames = Arrays.copyOf(cachedNames, 2 * cachedCount);
+        }
+        cachedBytes[cachedCount] = bytes;
+        cachedNames[cachedCount] = new String(bytes, StandardCharsets.UTF_8);
+        return cachedNames[cachedCount++];
+    }
+
+    private int indexOf(byte[] pattern, int begin, int end) {
+        return ByteLines.indexOf(buffer, pattern, begin, end);
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return ByteLines.isWhitespace(b);
+    }
+
+    private static byte[] ascii(String s) {
+        return ByteLines.ascii(s);
+    }
+
+    /** @return the module found by the last scan, or the default module */
+    String getModule() {
+        return module;
+    }
+
+    /** @return the set found by the last scan, or null */
+    String getSet() {
+        return set;
+    }
+
+    /**
+     * @return the names imported by the file of the last scan, or null if
+     *         imports were not collected
+     */
+    String[] getImports() {
+        return collectImports ? imports.toArray(new String[imports.size()]) : null;
+    }
+}
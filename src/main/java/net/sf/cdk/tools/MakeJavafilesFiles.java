@@ -25,16 +25,33 @@
 package net.sf.cdk.tools;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+import net.sf.cdk.tools.copyright.CheckCopyrightStatements;
 
 /**
  * Class that creates the ${build}/*.javafiles.
@@ -43,20 +60,67 @@ import java.util.Map;
  */
 public class MakeJavafilesFiles {
 
+    /** Layouts of the source roots found by {@link #findSourceRoots(File)}. */
+    private static final String[] SOURCE_ROOT_LAYOUTS = {
+        "src" + File.separator + "main" + File.separator + "java",
+        "src" + File.separator + "test" + File.separator + "java"
+    };
+
     private Map<String,List<String>> cdkPackages;
     private Map<String,List<String>> cdkSets;
     
     private String default_module;
 
     /** Java files that should not be processed because they are
-     * listed in a *.autogenerated file.
+     * listed in a *.autogenerated file. Lines may be patterns like
+     * org/openscience/cdk/generated/**.
      */
-    private List<String> blacklist;
+    private PathPatternSet blacklist;
    
     private String sourceDir = null;
     private String outputDir = null;
     private String metainfDir = null;
 
+    private int threads = 1;
+
+    /** Whether the module and set of each file are kept in a
+     * {@link SourceIndex} in the output directory between runs.
+     */
+    private boolean useIndex = true;
+
+    /** File to write the module dependencies to, or null. */
+    private File dependencyGraphFile = null;
+
+    /** File to write the binary module index to, or null. */
+    private File moduleIndexFile = null;
+
+    /** Maximum number of shards a module's .javafiles is split into. */
+    private int shards = 1;
+
+    /** Minimum source size of a shard, in bytes. */
+    private long minimumShardSize = 256 * 1024;
+
+    /** Metrics of the scans, or null if not collected. */
+    private ScanStatistics statistics = null;
+
+    /** Module and set of each Java file processed so far. */
+    private SourceIndex index = new SourceIndex();
+
+    /** Analyzers to run on the files read, besides the module scan. */
+    private final List<Supplier<? extends SourceAnalyzer>> analyzers =
+        new ArrayList<Supplier<? extends SourceAnalyzer>>();
+
+    /** Index entries of the files being read by {@link #scan}. */
+    private SourceIndex.Entry[] scanned;
+
+    /** Header scanner for {@link #getModuleAndSet(File)}, one per thread. */
+    private final ThreadLocal<HeaderScanner> scanners = new ThreadLocal<HeaderScanner>() {
+        @Override
+        protected HeaderScanner initialValue() {
+            return new HeaderScanner(default_module, false);
+        }
+    };
+
     public MakeJavafilesFiles(String metainfDir, String sourceDir, String outputDir) {
         cdkPackages = new Hashtable<String,List<String>>();
         cdkSets = new Hashtable<String,List<String>>();
@@ -70,12 +134,36 @@ public class MakeJavafilesFiles {
             default_module = "extra";
         }
     }
+
+    /**
+     * Creates a processor for one of the roots processed by the parent, with
+     * the blacklist and settings of the parent.
+     */
+    private MakeJavafilesFiles(MakeJavafilesFiles parent, String sourceDir, int threads) {
+        cdkPackages = new Hashtable<String,List<String>>();
+        cdkSets = new Hashtable<String,List<String>>();
+        this.sourceDir = sourceDir;
+        this.outputDir = parent.outputDir;
+        this.metainfDir = parent.metainfDir;
+        this.blacklist = parent.blacklist;
+        if (sourceDir.contains("test")) {
+            default_module = "test-extra";
+        } else {
+            default_module = "extra";
+        }
+        this.threads = threads;
+        this.useIndex = parent.useIndex;
+        // only used to decide whether imports are collected
+        this.dependencyGraphFile = parent.dependencyGraphFile;
+        this.statistics = parent.statistics;
+    }
 	
     private void readBlackList() {
-    	blacklist = new ArrayList<String>();
+    	blacklist = new PathPatternSet();
 		String metainfDirPath = this.metainfDir;
 		File metinfDir = new File(metainfDirPath);
 		File[] files = metinfDir.listFiles();
+		if (files == null) return; // no META-INF, nothing blacklisted
 		for (int i=0; i<files.length; i++) {
 			if (files[i].getName().endsWith(".autogenerated")) {
 				// add content to blacklist
@@ -83,11 +171,12 @@ public class MakeJavafilesFiles {
 					BufferedReader reader = new BufferedReader(new FileReader(files[i]));
 					String line = reader.readLine();
 					while (line != null) {
-						line.trim();
+						line = line.trim();
 						if (line.length() > 0) 
 							blacklist.add(line);
 						line = reader.readLine();
 					}
+					reader.close();
 				} catch (Exception e) {
 					System.out.println("Error reading a *.autogenerated file: " + e.getMessage());
 					e.printStackTrace();
@@ -98,151 +187,716 @@ public class MakeJavafilesFiles {
 		
 	}
 
+	/**
+	 * Returns the modules and sets found so far, for use by other tools in
+	 * the same JVM. Like the .javafiles files, the modules leave out the
+	 * blacklisted classes.
+	 *
+	 * @return an immutable snapshot of the modules and sets
+	 */
+	public ModuleIndex getModuleIndex() {
+		Map<String,List<String>> modules = new HashMap<String,List<String>>();
+		for (Map.Entry<String,List<String>> e : cdkPackages.entrySet()) {
+			List<String> classes = new ArrayList<String>();
+			for (String packageClass : e.getValue()) {
+				if (!blacklist.contains(toAPIPath(packageClass) + ".java")) {
+					classes.add(getClassName(packageClass));
+				}
+			}
+			modules.put(e.getKey(), classes);
+		}
+		return new ModuleIndex(modules, cdkSets);
+	}
+
 	public void outputResults() {
+		outputResults(cdkPackages.keySet(), cdkSets.keySet());
+	}
+
+	/**
+	 * Writes the .javafiles and .classes files of the given modules, and the
+	 * .set files of the given sets. Modules and sets that no longer have any
+	 * classes get empty files.
+	 *
+	 * @param modules the modules to write the listings of
+	 * @param sets    the sets to write the listings of
+	 */
+	public void outputResults(Collection<String> modules, Collection<String> sets) {
+        long start = System.nanoTime();
         // output information in .javafiles and .classes files
         try {
-			Iterator<String> keys = cdkPackages.keySet().iterator();
+			Iterator<String> keys = modules.iterator();
 			while (keys.hasNext()) {
 			    String key = (String)keys.next();
 			    
 			    // create one file for each cdk package = key
-			    PrintWriter outJava = new PrintWriter(
-			    	new FileWriter(outputDir + "/" + key + ".javafiles")
-			    );
-			    PrintWriter outClass = new PrintWriter(
-			    	new FileWriter(outputDir + "/" + key + ".classes")
-			    );
+			    ByteArrayOutputStream javaBytes = new ByteArrayOutputStream();
+			    ByteArrayOutputStream classBytes = new ByteArrayOutputStream();
+			    PrintWriter outJava = new PrintWriter(javaBytes);
+			    PrintWriter outClass = new PrintWriter(classBytes);
 			    List<String> packageClasses = cdkPackages.get(key);
+			    if (packageClasses == null) packageClasses = Collections.emptyList();
+			    List<String> listed = new ArrayList<String>();
 			    Iterator<String> classes = packageClasses.iterator();
 			    while (classes.hasNext()) {
-			        String packageClass = toAPIPath(classes.next());
+			        String sourceName = classes.next();
+			        String packageClass = toAPIPath(sourceName);
 			        if (!blacklist.contains(packageClass + ".java")) {
 			        	outJava.println(packageClass + ".java");
 			        	outClass.println(packageClass + "*.class");
+			        	listed.add(sourceName);
 			        }
 			    }
 			    outJava.flush(); outJava.close();
 			    outClass.flush(); outClass.close();
+			    writeIfChanged(key + ".javafiles", javaBytes);
+			    writeIfChanged(key + ".classes", classBytes);
+			    if (shards > 1) {
+			        writeShards(key, listed);
+			    } else {
+			        deleteShards(key, 1);
+			    }
 			}
 	        // output information in .set files
-	        keys = cdkSets.keySet().iterator();
+	        keys = sets.iterator();
 	        while (keys.hasNext()) {
 	            String key = (String)keys.next();
 	            
 	            // create one file for each cdk package = key
-	            PrintWriter outJava = new PrintWriter(
-	            	new FileWriter(outputDir + "/" + key + ".set")
-	            );
+	            ByteArrayOutputStream setBytes = new ByteArrayOutputStream();
+	            PrintWriter outJava = new PrintWriter(setBytes);
 	            List<String> packageClasses = cdkSets.get(key);
+	            if (packageClasses == null) packageClasses = Collections.emptyList();
 	            Iterator<String> classes = packageClasses.iterator();
 	            while (classes.hasNext()) {
 	                String packageClass = (String)classes.next();
 	                outJava.println(packageClass);
 	            }
 	            outJava.flush(); outJava.close();
+	            writeIfChanged(key + ".set", setBytes);
+	        }
+	        if (dependencyGraphFile != null) {
+	            ModuleDependencyGraph.build(index).reduce().write(dependencyGraphFile);
+	        }
+	        if (moduleIndexFile != null) {
+	            ModuleIndexFile.write(getModuleIndex(), moduleIndexFile);
 	        }
 		} catch (IOException e) {
 			// TODO Auto-generated catch block
 			e.printStackTrace();
 		}
+		if (statistics != null) statistics.addPhase(ScanStatistics.Phase.OUTPUT, start);
+    }
+
+    /**
+     * Splits the .javafiles listing of a module into shards of about the same
+     * total source size, written as &lt;module&gt;.javafiles.&lt;n&gt; with n
+     * counting from 1. Files keep their listing order within a shard. Shards
+     * left over from earlier runs with more shards are removed.
+     */
+    private void writeShards(String module, List<String> sourceNames) throws IOException {
+        final long[] sizes = new long[sourceNames.size()];
+        long total = 0;
+        for (int i=0; i<sizes.length; i++) {
+            SourceIndex.Entry entry = index.get(sourceNames.get(i));
+            sizes[i] = entry == null ? 0 : entry.size;
+            total += sizes[i];
+        }
+        int count = (int) Math.min(Math.min(shards, sizes.length), total / Math.max(1, minimumShardSize));
+        if (count < 2) count = 0;
+
+        // largest file first, each into the smallest shard so far
+        Integer[] order = new Integer[sizes.length];
+        for (int i=0; i<order.length; i++) order[i] = i;
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                int c = Long.compare(sizes[b], sizes[a]);
+                return c != 0 ? c : a.compareTo(b);
+            }
+        });
+        final long[] shardSizes = new long[count];
+        PriorityQueue<Integer> smallest = new PriorityQueue<Integer>(Math.max(1, count), new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                int c = Long.compare(shardSizes[a], shardSizes[b]);
+                return c != 0 ? c : a.compareTo(b);
+            }
+        });
+        for (int i=0; i<count; i++) smallest.add(i);
+        int[] shardOf = new int[sizes.length];
+        for (int i=0; count > 0 && i<order.length; i++) {
+            int shard = smallest.poll();
+            shardOf[order[i]] = shard;
+            shardSizes[shard] += sizes[order[i]];
+            smallest.add(shard);
+        }
+
+        for (int shard=0; shard<count; shard++) {
+            ByteArrayOutputStream shardBytes = new ByteArrayOutputStream();
+            PrintWriter out = new PrintWriter(shardBytes);
+            for (int i=0; i<sizes.length; i++) {
+                if (shardOf[i] == shard) out.println(toAPIPath(sourceNames.get(i)) + ".java");
+            }
+            out.flush(); out.close();
+            writeIfChanged(module + ".javafiles." + (shard + 1), shardBytes);
+        }
+        deleteShards(module, count + 1);
+    }
+
+    /**
+     * Removes the shards of a module from the given shard number on, left
+     * over from earlier runs with more shards.
+     */
+    private void deleteShards(String module, int first) {
+        for (int shard=first; new File(outputDir, module + ".javafiles." + shard).delete(); shard++);
+    }
+
+    /**
+     * Writes a rendered output file, leaving it untouched if its content
+     * did not change since the last run.
+     */
+    private void writeIfChanged(String name, ByteArrayOutputStream content) throws IOException {
+        OutputFiles.writeIfChanged(new File(outputDir, name), content.toByteArray());
     }
     
+    /**
+     * Sets the number of worker threads used to read the Java source files.
+     * With one thread, the default, all files are read on the calling thread.
+     *
+     * @param threads number of threads, at least one
+     */
+    public void setThreads(int threads) {
+        if (threads < 1)
+            throw new IllegalArgumentException("Need at least one thread: " + threads);
+        this.threads = threads;
+    }
+
+    /**
+     * Sets the file to write the dependencies between the modules to, as
+     * found from the import statements. The transitive dependencies are left
+     * out. The graph is written as JSON if the file name ends with .json, and
+     * in the Graphviz DOT format otherwise.
+     *
+     * @param dependencyGraphFile the output file, or null to not compute the
+     *                            dependencies, the default
+     */
+    public void setDependencyGraphFile(File dependencyGraphFile) {
+        this.dependencyGraphFile = dependencyGraphFile;
+    }
+
+    /**
+     * Sets the file to write all modules and sets to, as a single binary
+     * {@link ModuleIndexFile}, besides the text listings.
+     *
+     * @param moduleIndexFile the output file, or null to not write it, the
+     *                        default
+     */
+    public void setModuleIndexFile(File moduleIndexFile) {
+        this.moduleIndexFile = moduleIndexFile;
+    }
+
+    /**
+     * Sets the number of shards the .javafiles listing of a large module is
+     * split into, so that the module can be compiled by parallel jobs. The
+     * shards are balanced by source size. A module is split into fewer
+     * shards if they would get smaller than the minimum shard size.
+     *
+     * @param shards maximum number of shards per module, 1 to not split
+     *               modules, the default
+     */
+    public void setShards(int shards) {
+        if (shards < 1)
+            throw new IllegalArgumentException("Need at least one shard: " + shards);
+        this.shards = shards;
+    }
+
+    /**
+     * @param bytes minimum total source size of a shard, 256 KiB by default
+     */
+    public void setMinimumShardSize(long bytes) {
+        this.minimumShardSize = bytes;
+    }
+
+    /**
+     * Sets the statistics to record the files read and the time spent in
+     * listing, parsing and writing the output in.
+     *
+     * @param statistics the statistics, or null to not collect them, the
+     *                   default
+     */
+    public void setStatistics(ScanStatistics statistics) {
+        this.statistics = statistics;
+    }
+
+    /**
+     * Adds an analyzer to run on the header of the Java source files, in the
+     * same pass that finds the modules and sets. With additional analyzers
+     * all files are read, also those that did not change since the last run.
+     *
+     * @param factory creates an analyzer for each thread reading files
+     * @see SourcePipeline#addAnalyzer(Supplier)
+     */
+    public void addAnalyzer(Supplier<? extends SourceAnalyzer> factory) {
+        analyzers.add(factory);
+    }
+
+    /**
+     * Sets whether the module and set of each file are cached in the output
+     * directory, so that the next run only reads new and modified files.
+     * The index is used by default.
+     *
+     * @param useIndex false to read all files on every run
+     */
+    public void setUseIndex(boolean useIndex) {
+        this.useIndex = useIndex;
+    }
+
     public void processJavaSourceFiles(File path) {
-    	if (path.isDirectory()) {
-    		File[] files = path.listFiles();
-    		for (int i=files.length;i>0;i--) {
-    			processJavaSourceFiles(files[i-1]);
-    		}
-    	} else if (path.isFile() && path.getPath().endsWith(".java") &&
-    			   !(path.getPath().indexOf("net/sf") != -1 ||
-                             path.getPath().indexOf("net\\sf") != -1)) {
-    		String[] moduleAndSet = getModuleAndSet(path);
-    		if (moduleAndSet == null) {
-    			System.out.println("Something wrong with the Java source file: " + path);    			
-    		} else {
-    			if (moduleAndSet[0] != null) {
-        			addClassToCDKPackage(getSourceName(path), moduleAndSet[0]);
-    			}
-    			if (moduleAndSet[1] != null) {
-    				addClassToCDKSet(getClassName(path), moduleAndSet[1]);
-    			}
-    		}
-    	}
+        // list first, so that the order in which classes are added to the
+        // modules and sets does not depend on the number of threads
+        long start = System.nanoTime();
+        List<File> files = SourcePipeline.listJavaSourceFiles(path);
+        if (statistics != null) {
+            statistics.addPhase(ScanStatistics.Phase.LISTING, start);
+            statistics.addFilesListed(files.size());
+        }
+
+        File indexFile = getIndexFile();
+        SourceIndex previous = useIndex ? SourceIndex.read(indexFile) : new SourceIndex();
+        SourceIndex.Entry[] entries = new SourceIndex.Entry[files.size()];
+        int[] modified = new int[files.size()];
+        int modifiedCount = 0;
+        for (int i=0; i<files.size(); i++) {
+            File file = files.get(i);
+            if (analyzers.isEmpty()) {
+                entries[i] = previous.getUpToDate(getSourceName(file), file.length(), file.lastModified(),
+                                                  dependencyGraphFile != null);
+            }
+            if (entries[i] == null) modified[modifiedCount++] = i;
+        }
+
+        start = System.nanoTime();
+        SourceIndex.Entry[] read = scan(files, modified, modifiedCount);
+        if (statistics != null) statistics.addPhase(ScanStatistics.Phase.PARSING, start);
+        for (int i=0; i<modifiedCount; i++) {
+            entries[modified[i]] = read[modified[i]];
+        }
+
+        index = new SourceIndex();
+        for (int i=0; i<files.size(); i++) {
+            File file = files.get(i);
+            if (entries[i] == null || entries[i].isBroken()) {
+                System.out.println("Something wrong with the Java source file: " + file);
+            }
+            // broken files are kept too, so that they are not read again
+            if (entries[i] != null) index.put(getSourceName(file), entries[i]);
+        }
+        collectModulesAndSets();
+        writeIndex();
+    }
+
+    /**
+     * Processes several source roots, like the <code>src/main/java</code>
+     * and <code>src/test/java</code> directories of a multi-module source
+     * tree, in one go. The roots are processed concurrently, reading the
+     * blacklist only once, and their modules and sets are merged as if the
+     * roots were a single source tree. Each root keeps its own default module
+     * and source index. A source file with the same path in two roots would
+     * be listed once only, so it is an error.
+     *
+     * <p>Additional analyzers are not supported here, since the file indices
+     * they see would not be unique over the roots.
+     *
+     * @param roots the source roots
+     * @throws IllegalStateException if two roots have a file with the same path
+     */
+    public void processJavaSourceRoots(List<File> roots) {
+        if (!analyzers.isEmpty())
+            throw new IllegalStateException("Analyzers are not supported with multiple source roots");
+        int poolSize = Math.max(1, Math.min(threads, roots.size()));
+        int rootThreads = Math.max(1, threads / Math.max(1, roots.size()));
+        final List<MakeJavafilesFiles> processors = new ArrayList<MakeJavafilesFiles>();
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+        for (File root : roots) {
+            final MakeJavafilesFiles processor = new MakeJavafilesFiles(this, root.getPath(), rootThreads);
+            processors.add(processor);
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    processor.processJavaSourceFiles(new File(processor.sourceDir));
+                    return null;
+                }
+            });
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(poolSize);
+        try {
+            for (Future<Void> future : pool.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while processing the source roots", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Could not process a source root", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+
+        index = new SourceIndex();
+        Map<String,String> rootOf = new HashMap<String,String>();
+        StringBuilder duplicates = new StringBuilder();
+        for (MakeJavafilesFiles processor : processors) {
+            for (Map.Entry<String,SourceIndex.Entry> e : processor.index.getEntries().entrySet()) {
+                String other = rootOf.put(e.getKey(), processor.sourceDir);
+                if (other != null) {
+                    duplicates.append("\n  ").append(e.getKey()).append(".java in ")
+                              .append(other).append(" and ").append(processor.sourceDir);
+                }
+                index.put(e.getKey(), e.getValue());
+            }
+        }
+        if (duplicates.length() > 0)
+            throw new IllegalStateException("Java source files in more than one source root:" + duplicates);
+        collectModulesAndSets();
+    }
+
+    /**
+     * Finds the <code>src/main/java</code> and <code>src/test/java</code>
+     * directories below the given base directory, at any depth. Build output
+     * and hidden directories are skipped.
+     *
+     * @param baseDir the base directory of the source tree
+     * @return the source roots, sorted by path
+     */
+    public static List<File> findSourceRoots(File baseDir) {
+        List<File> roots = new ArrayList<File>();
+        findSourceRoots(baseDir, roots);
+        Collections.sort(roots, new Comparator<File>() {
+            @Override
+            public int compare(File a, File b) {
+                return a.getPath().compareTo(b.getPath());
+            }
+        });
+        return roots;
+    }
+
+    private static void findSourceRoots(File dir, List<File> roots) {
+        for (String layout : SOURCE_ROOT_LAYOUTS) {
+            File root = new File(dir, layout);
+            if (root.isDirectory()) roots.add(root);
+        }
+        File[] children = dir.listFiles();
+        if (children == null) return;
+        for (File child : children) {
+            String name = child.getName();
+            if (child.isDirectory() && !name.startsWith(".") &&
+                !name.equals("src") && !name.equals("target") && !name.equals("build")) {
+                findSourceRoots(child, roots);
+            }
+        }
+    }
+
+    /**
+     * Updates the modules and sets after the given files were created,
+     * modified or deleted, and rewrites the listings of the affected modules
+     * and sets only. A deleted directory removes all files below it.
+     *
+     * @param changed the changed files and directories
+     */
+    public void updateJavaSourceFiles(Collection<File> changed) {
+        Set<String> modules = new HashSet<String>();
+        Set<String> sets = new HashSet<String>();
+        List<File> modified = new ArrayList<File>();
+        Set<String> keys = new HashSet<String>();
+        for (File file : changed) {
+            String path = file.getPath();
+            if (path.length() <= sourceDir.length()) continue;
+            if (!file.exists()) {
+                // may have been a directory: drop everything below it
+                String prefix = path.substring(sourceDir.length()+1) + File.separator;
+                for (SourceIndex.Entry entry : index.removeBelow(prefix)) {
+                    addAffected(entry, modules, sets);
+                }
+            }
+            if (!SourcePipeline.isJavaSourceFile(path)) continue;
+            String key = getSourceName(file);
+            addAffected(index.remove(key), modules, sets);
+            if (file.isFile() && keys.add(key)) modified.add(file);
+        }
+        // read all modified files in one go, reusing the buffers
+        int[] all = new int[modified.size()];
+        for (int i=0; i<all.length; i++) all[i] = i;
+        SourceIndex.Entry[] read = scan(modified, all, all.length);
+        for (int i=0; i<all.length; i++) {
+            File file = modified.get(i);
+            if (read[i] == null || read[i].isBroken()) {
+                System.out.println("Something wrong with the Java source file: " + file);
+            }
+            if (read[i] != null) {
+                index.put(getSourceName(file), read[i]);
+                addAffected(read[i], modules, sets);
+            }
+        }
+        if (!modules.isEmpty() || !sets.isEmpty()) {
+            collectModulesAndSets();
+            outputResults(modules, sets);
+        }
+        writeIndex();
+    }
+
+    /**
+     * Processes the whole source tree again and rewrites the listings, for
+     * when changes were missed. Like {@link #updateJavaSourceFiles(Collection)},
+     * modules and sets that no longer have any classes get empty files.
+     *
+     * @param path the source directory
+     */
+    void reprocessJavaSourceFiles(File path) {
+        Set<String> modules = new HashSet<String>(cdkPackages.keySet());
+        Set<String> sets = new HashSet<String>(cdkSets.keySet());
+        processJavaSourceFiles(path);
+        modules.addAll(cdkPackages.keySet());
+        sets.addAll(cdkSets.keySet());
+        outputResults(modules, sets);
+    }
+
+    private void addAffected(SourceIndex.Entry entry, Set<String> modules, Set<String> sets) {
+        if (entry == null || entry.isBroken()) return;
+        modules.add(entry.module);
+        if (entry.set != null) sets.add(entry.set);
+    }
+
+    /**
+     * Fills the modules and sets from the index, in listing order.
+     */
+    private void collectModulesAndSets() {
+        cdkPackages.clear();
+        cdkSets.clear();
+        for (Map.Entry<String,SourceIndex.Entry> e : index.getEntries().entrySet()) {
+            SourceIndex.Entry entry = e.getValue();
+            addClassToCDKPackage(e.getKey(), entry.module);
+            if (entry.set != null) {
+                addClassToCDKSet(getClassName(e.getKey()), entry.set);
+            }
+        }
+    }
+
+    private void writeIndex() {
+        if (!useIndex) return;
+        File indexFile = getIndexFile();
+        try {
+            index.write(indexFile);
+        } catch (IOException e) {
+            System.out.println("Could not write the source index " + indexFile + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the file the {@link SourceIndex} is kept in. The main and test
+     * sources are written to the same output directory, so the file name
+     * depends on the source directory.
+     */
+    private File getIndexFile() {
+        String key = Integer.toHexString(new File(sourceDir).getAbsolutePath().hashCode());
+        return new File(outputDir, "javafiles-" + key + ".index");
+    }
+
+    /**
+     * Reads the selected files with the module scan and the additional
+     * analyzers, in parallel if more than one thread is set.
+     *
+     * @return the new index entries, at the position of the files read, or
+     *         null for files that could not be read
+     */
+    private SourceIndex.Entry[] scan(List<File> files, int[] selected, int count) {
+        SourcePipeline pipeline = new SourcePipeline();
+        pipeline.setThreads(threads);
+        pipeline.setStatistics(statistics);
+        pipeline.addAnalyzer(ModuleAnalyzer::new);
+        for (Supplier<? extends SourceAnalyzer> factory : analyzers) {
+            pipeline.addAnalyzer(factory);
+        }
+        scanned = new SourceIndex.Entry[files.size()];
+        try {
+            pipeline.run(files, selected, count);
+            return scanned;
+        } finally {
+            scanned = null;
+        }
+    }
+
+    /**
+     * Reads the module and set of a file, along with the size and
+     * modification time to store in the index.
+     */
+    private class ModuleAnalyzer implements SourceAnalyzer {
+
+        private final HeaderScanner scanner = new HeaderScanner(default_module, dependencyGraphFile != null);
+        private long size;
+        private long lastModified;
+        private int  index;
+
+        @Override
+        public void start(int index, File file) {
+            this.index = index;
+            size = file.length();
+            lastModified = file.lastModified();
+            scanner.start(index, file);
+        }
+
+        @Override
+        public boolean analyzeLine(ByteBuffer buffer, int begin, int end) {
+            return scanner.analyzeLine(buffer, begin, end);
+        }
+
+        @Override
+        public void end(IOException error) {
+            scanner.end(error);
+            if (scanner.isComplete()) {
+                scanned[index] = new SourceIndex.Entry(size, lastModified, scanner.getModule(),
+                                                       scanner.getSet(), scanner.getImports());
+            } else if (error == null) {
+                // read errors may go away, a missing header only with an edit
+                scanned[index] = SourceIndex.Entry.broken(size, lastModified);
+            }
+        }
     }
     
     public String[] getModuleAndSet(File file) {
-    	try {
-    		String[] results = new String[2];
-            results[0] = default_module;
-    		results[1] = null;
-			BufferedReader reader = new BufferedReader(
-				new FileReader(file)
-			);
-			String line = null;
-			boolean inComment = false;
-			while ((line = reader.readLine()) != null) {
-				int index = line.indexOf("/**");
-				if (index != -1) {
-					inComment = true;
-					if (line.substring(index).indexOf("*/") != -1) inComment = false;
-				} else {
-					if (line.indexOf("*/") != -1) inComment = false;
-				}
-
-				if (!inComment && (line.indexOf("class") != -1 ||
-                                   line.indexOf("public enum") != -1 ||
-						line.indexOf("public interface") != -1 ||
-						line.indexOf("public @interface") != -1)) {
-					// Nothing specified: return the default 'extra'
-					reader.close();
-					return results;
-				}
-				
-				index = line.indexOf("@cdk.module");
-				String name = "";
-				if (index != -1) {
-					index += 11;
-					// skip the first chars
-					while (Character.isWhitespace(line.charAt(index))) index++;
-					while (index < line.length() && 
-						   !Character.isWhitespace(line.charAt(index))) {
-						name += line.charAt(index);
-						index++;
-					}
-					results[0] = name;
-				} else {
-					index = line.indexOf("@cdk.set");
-					String set = "";
-					if (index != -1) {
-						index += 8;
-						// skip the first chars
-						while (Character.isWhitespace(line.charAt(index))) index++;
-						while (index < line.length() && 
-							   !Character.isWhitespace(line.charAt(index))) {
-							set += line.charAt(index);
-							index++;
-						}
-						results[1] = set;
-					}
-				}
-			}
-		} catch (Exception e) {
-			e.printStackTrace();
-		}
-    	return null;
+        HeaderScanner scanner = scanners.get();
+        if (!scanner.scan(file)) return null;
+        return new String[] { scanner.getModule(), scanner.getSet() };
     }
     
 	public static void main(String[] args) {
-		if (args.length != 3) {
-			System.out.println("Syntax: MakeJavafilesFiles <metainfDir> <sourceDir> <outputDir>");
-			System.exit(-1);
+		int threads = 1;
+		boolean useIndex = true;
+		boolean watch = false;
+		boolean copyright = false;
+		String deps = null;
+		String binary = null;
+		String report = null;
+		String discover = null;
+		int shards = 1;
+		long shardSize = -1;
+		boolean multipleRoots = false;
+		int argc = 0;
+		while (argc < args.length && args[argc].startsWith("-")) {
+			if (args[argc].equals("-threads") && argc+1 < args.length) {
+				threads = Integer.parseInt(args[argc+1]);
+				argc += 2;
+			} else if (args[argc].equals("-noindex")) {
+				useIndex = false;
+				argc++;
+			} else if (args[argc].equals("-deps") && argc+1 < args.length) {
+				deps = args[argc+1];
+				argc += 2;
+			} else if (args[argc].equals("-binary") && argc+1 < args.length) {
+				binary = args[argc+1];
+				argc += 2;
+			} else if (args[argc].equals("-report") && argc+1 < args.length) {
+				report = args[argc+1];
+				argc += 2;
+			} else if (args[argc].equals("-watch")) {
+				watch = true;
+				argc++;
+			} else if (args[argc].equals("-copyright")) {
+				copyright = true;
+				argc++;
+			} else if (args[argc].equals("-shards") && argc+1 < args.length) {
+				shards = Integer.parseInt(args[argc+1]);
+				argc += 2;
+			} else if (args[argc].equals("-shardsize") && argc+1 < args.length) {
+				shardSize = Long.parseLong(args[argc+1]);
+				argc += 2;
+			} else if (args[argc].equals("-roots")) {
+				multipleRoots = true;
+				argc++;
+			} else if (args[argc].equals("-discover") && argc+1 < args.length) {
+				discover = args[argc+1];
+				argc += 2;
+			} else {
+				syntax();
+			}
+		}
+		List<File> roots = null;
+		String sourceDir;
+		String outputDir;
+		if (discover != null || multipleRoots) {
+			// <metainfDir> <outputDir> [<sourceDir>...]
+			if (watch || copyright || (discover != null ? args.length - argc != 2 : args.length - argc < 3)) {
+				syntax();
+			}
+			outputDir = args[argc+1];
+			if (discover != null) {
+				sourceDir = discover;
+				roots = findSourceRoots(new File(discover));
+			} else {
+				sourceDir = args[argc+2];
+				roots = new ArrayList<File>();
+				for (int i=argc+2; i<args.length; i++) roots.add(new File(args[i]));
+			}
+		} else {
+			if (args.length - argc != 3) {
+				syntax();
+			}
+			sourceDir = args[argc+1];
+			outputDir = args[argc+2];
 		}
 		
-		MakeJavafilesFiles processor = new MakeJavafilesFiles(args[0], args[1], args[2]);
+		MakeJavafilesFiles processor = new MakeJavafilesFiles(args[argc], sourceDir, outputDir);
+		processor.setThreads(threads);
+		processor.setUseIndex(useIndex);
+		if (deps != null) processor.setDependencyGraphFile(new File(deps));
+		if (binary != null) processor.setModuleIndexFile(new File(binary));
+		processor.setShards(shards);
+		if (shardSize > 0) processor.setMinimumShardSize(shardSize);
+		ScanStatistics statistics = null;
+		if (report != null) {
+			statistics = new ScanStatistics();
+			processor.setStatistics(statistics);
+		}
+		// check the copyright statements on the same file reads
+		CheckCopyrightStatements checker = null;
+		if (copyright) {
+			checker = new CheckCopyrightStatements();
+			processor.addAnalyzer(checker.getAnalyzerFactory());
+		}
 		
-		processor.processJavaSourceFiles(new File(args[1]));
+		if (roots != null) {
+			processor.processJavaSourceRoots(roots);
+		} else {
+			processor.processJavaSourceFiles(new File(sourceDir));
+		}
 		processor.outputResults();
-		
+		if (checker != null) checker.reportResults();
+		if (statistics != null) {
+			try {
+				statistics.write(new File(report));
+			} catch (IOException e) {
+				System.out.println("Could not write the report: " + e.getMessage());
+			}
+		}
+
+		if (watch) {
+			try {
+				new SourceWatcher(processor, new File(sourceDir)).run();
+			} catch (IOException e) {
+				System.out.println("Could not watch the source directory: " + e.getMessage());
+				System.exit(1);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	private static void syntax() {
+		System.out.println("Syntax: MakeJavafilesFiles [options] [-watch] [-copyright] <metainfDir> <sourceDir> <outputDir>\n" +
+		                   "        MakeJavafilesFiles [options] -roots <metainfDir> <outputDir> <sourceDir>...\n" +
+		                   "        MakeJavafilesFiles [options] -discover <baseDir> <metainfDir> <outputDir>\n" +
+		                   "Options: [-threads <n>] [-noindex] [-deps <file.dot|file.json>] [-binary <file>]\n" +
+		                   "         [-report <file.json>] [-shards <n>] [-shardsize <bytes>]");
+		System.exit(-1);
 	}
 	
     private String toAPIPath(String className) {
@@ -264,12 +918,12 @@ public class MakeJavafilesFiles {
         return tmp.substring(0, tmp.length()-5);
     }
 
-    private String getClassName(File classFile) {
-    	// assume the pattern src/package/className.java
+    private String getClassName(String sourceName) {
+    	// assume the pattern package/className
     	// return package.className
     	StringBuffer sb = new StringBuffer();
-    	String className = classFile.getPath().substring(sourceDir.length()+1);
-        for (int i=0; i<className.length()-5; i++) {
+    	String className = sourceName;
+        for (int i=0; i<className.length(); i++) {
             if (className.charAt(i) == '/' || className.charAt(i) == '\\') {
                 sb.append('.');
             } else {
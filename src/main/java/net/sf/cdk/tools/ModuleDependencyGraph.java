@@ -0,0 +1,225 @@
+/* Copyright (C) 2026  The CDK Development Team <cdk-devel@lists.sourceforge.net>
+ *
+ * Contact: cdk-devel@lists.sourceforge.net
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 2.1
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package net.sf.cdk.tools;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Dependencies between CDK modules, derived from the import statements of
+ * the Java source files. A module depends on another module if one of its
+ * classes imports a class of that module. Classes used from the same
+ * package without an import statement are not seen.
+ *
+ * <p>This replaces the <code>mvn dependency:tree | tred | dot</code> pipeline
+ * of <code>deptodot.sh</code>: the transitive reduction is computed here,
+ * from a reachability matrix with one {@link BitSet} row per module.
+ */
+class ModuleDependencyGraph {
+
+    private final List<String> modules;
+    private final BitSet[]     dependencies;
+
+    private ModuleDependencyGraph(List<String> modules, BitSet[] dependencies) {
+        this.modules = modules;
+        this.dependencies = dependencies;
+    }
+
+    /**
+     * Builds the graph from the imports stored in the source index.
+     *
+     * @param index the source index, with imports
+     * @return the module dependencies
+     */
+    static ModuleDependencyGraph build(SourceIndex index) {
+        Map<String,String> classModules = new HashMap<String,String>();
+        Map<String,Set<String>> packageModules = new HashMap<String,Set<String>>();
+        Set<String> names = new TreeSet<String>();
+        for (Map.Entry<String,SourceIndex.Entry> e : index.getEntries().entrySet()) {
+            String module = e.getValue().module;
+            String className = e.getKey().replace('/', '.').replace('\\', '.');
+            names.add(module);
+            classModules.put(className, module);
+            int dot = className.lastIndexOf('.');
+            String packageName = dot == -1 ? "" : className.substring(0, dot);
+            Set<String> modules = packageModules.get(packageName);
+            if (modules == null) {
+                modules = new TreeSet<String>();
+                packageModules.put(packageName, modules);
+            }
+            modules.add(module);
+        }
+
+        List<String> modules = new ArrayList<String>(names);
+        Map<String,Integer> ids = new HashMap<String,Integer>();
+        BitSet[] dependencies = new BitSet[modules.size()];
+        for (int i=0; i<modules.size(); i++) {
+            ids.put(modules.get(i), i);
+            dependencies[i] = new BitSet(modules.size());
+        }
+        for (SourceIndex.Entry entry : index.getEntries().values()) {
+            if (entry.imports == null) continue;
+            BitSet row = dependencies[ids.get(entry.module)];
+            for (String name : entry.imports) {
+                for (String module : resolve(name, classModules, packageModules)) {
+                    row.set(ids.get(module));
+                }
+            }
+        }
+        for (int i=0; i<modules.size(); i++) {
+            dependencies[i].clear(i);
+        }
+        return new ModuleDependencyGraph(modules, dependencies);
+    }
+
+    /**
+     * Finds the modules of an imported name. Static imports and nested classes
+     * are resolved to their outer class, wildcard imports to all modules with
+     * classes in the package.
+     */
+    private static Set<String> resolve(String name, Map<String,String> classModules,
+                                       Map<String,Set<String>> packageModules) {
+        boolean wildcard = name.endsWith(".*");
+        if (wildcard) name = name.substring(0, name.length()-2);
+        String prefix = name;
+        while (true) {
+            String module = classModules.get(prefix);
+            if (module != null) return Collections.singleton(module);
+            int dot = prefix.lastIndexOf('.');
+            if (dot == -1) break;
+            prefix = prefix.substring(0, dot);
+        }
+        if (wildcard && packageModules.containsKey(name)) {
+            return packageModules.get(name);
+        }
+        return Collections.emptySet();
+    }
+
+    /**
+     * Returns the transitive reduction of this graph: a dependency is left
+     * out if it is also reached through another direct dependency. Within a
+     * cycle, which has no unique reduction, all dependencies are kept.
+     *
+     * @return the reduced graph
+     */
+    ModuleDependencyGraph reduce() {
+        int n = modules.size();
+        // reachable[i] = modules reachable from i through one or more dependencies
+        BitSet[] reachable = new BitSet[n];
+        for (int i=0; i<n; i++) {
+            reachable[i] = (BitSet) dependencies[i].clone();
+        }
+        for (int k=0; k<n; k++) {
+            for (int i=0; i<n; i++) {
+                if (reachable[i].get(k)) reachable[i].or(reachable[k]);
+            }
+        }
+        BitSet[] reduced = new BitSet[n];
+        for (int i=0; i<n; i++) {
+            reduced[i] = (BitSet) dependencies[i].clone();
+            BitSet direct = dependencies[i];
+            for (int w=direct.nextSetBit(0); w>=0; w=direct.nextSetBit(w+1)) {
+                if (w == i) continue;
+                BitSet redundant = (BitSet) reachable[w].clone();
+                // keep dependencies on modules in a cycle with w
+                for (int v=redundant.nextSetBit(0); v>=0; v=redundant.nextSetBit(v+1)) {
+                    if (reachable[v].get(w)) redundant.clear(v);
+                }
+                reduced[i].andNot(redundant);
+            }
+        }
+        return new ModuleDependencyGraph(modules, reduced);
+    }
+
+    /**
+     * @return the graph in the Graphviz DOT format
+     */
+    String toDot() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("digraph {\n");
+        for (int i=0; i<modules.size(); i++) {
+            sb.append("  ").append(dotQuote(modules.get(i))).append(";\n");
+        }
+        for (int i=0; i<modules.size(); i++) {
+            BitSet row = dependencies[i];
+            for (int j=row.nextSetBit(0); j>=0; j=row.nextSetBit(j+1)) {
+                sb.append("  ").append(dotQuote(modules.get(i))).append(" -> ")
+                  .append(dotQuote(modules.get(j))).append(";\n");
+            }
+        }
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    /**
+     * @return the name as a quoted DOT identifier, with quotes and
+     *         backslashes escaped
+     */
+    private static String dotQuote(String name) {
+        StringBuilder quoted = new StringBuilder(name.length() + 2);
+        quoted.append('"');
+        for (int i=0; i<name.length(); i++) {
+            char c = name.charAt(i);
+            if (c == '"' || c == '\\') quoted.append('\\');
+            quoted.append(c);
+        }
+        return quoted.append('"').toString();
+    }
+
+    /**
+     * @return the graph as a JSON object mapping each module to the list
+     *         of modules it depends on
+     */
+    String toJson() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\n");
+        for (int i=0; i<modules.size(); i++) {
+            sb.append("  ").append(Json.quote(modules.get(i))).append(": [");
+            BitSet row = dependencies[i];
+            for (int j=row.nextSetBit(0); j>=0; j=row.nextSetBit(j+1)) {
+                if (j != row.nextSetBit(0)) sb.append(", ");
+                sb.append(Json.quote(modules.get(j)));
+            }
+            sb.append(i+1 < modules.size() ? "],\n" : "]\n");
+        }
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    /**
+     * Writes the graph as JSON if the file name ends with .json, and in the
+     * DOT format otherwise.
+     *
+     * @param file the output file
+     * @throws IOException if the file could not be written
+     */
+    void write(File file) throws IOException {
+        String content = file.getName().endsWith(".json") ? toJson() : toDot();
+        OutputFiles.writeIfChanged(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,120 @@
+/* Copyright (C) 2026  The CDK Development Team <cdk-devel@lists.sourceforge.net>
+ *
+ * Contact: cdk-devel@lists.sourceforge.net
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 2.1
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package net.sf.cdk.tools;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Read-only view of the CDK modules and sets of a source tree, as found by
+ * {@link MakeJavafilesFiles}. It holds the same information as the .javafiles
+ * and .set files, so that tools running in the same JVM can look up modules
+ * without reading those listings. Class names are fully qualified, like
+ * <code>org.openscience.cdk.Atom</code>.
+ *
+ * <p>Instances are immutable and can be shared between threads.
+ */
+public class ModuleIndex {
+
+    private final Map<String,String>       classModules = new HashMap<String,String>();
+    private final Map<String,List<String>> moduleClasses = new HashMap<String,List<String>>();
+    private final Map<String,List<String>> setClasses = new HashMap<String,List<String>>();
+    private final Set<String>              modules;
+    private final Set<String>              sets;
+
+    /**
+     * @param modules classes of each module, without the blacklisted classes
+     * @param sets    classes of each set
+     */
+    ModuleIndex(Map<String,List<String>> modules, Map<String,List<String>> sets) {
+        for (Map.Entry<String,List<String>> e : modules.entrySet()) {
+            moduleClasses.put(e.getKey(), Collections.unmodifiableList(new ArrayList<String>(e.getValue())));
+            for (String className : e.getValue()) {
+                classModules.put(className, e.getKey());
+            }
+        }
+        for (Map.Entry<String,List<String>> e : sets.entrySet()) {
+            setClasses.put(e.getKey(), Collections.unmodifiableList(new ArrayList<String>(e.getValue())));
+        }
+        this.modules = Collections.unmodifiableSet(new TreeSet<String>(moduleClasses.keySet()));
+        this.sets = Collections.unmodifiableSet(new TreeSet<String>(setClasses.keySet()));
+    }
+
+    /**
+     * Scans a source tree and returns its modules and sets. The source index
+     * kept in the cache directory is used and updated, so only the files
+     * changed since the last scan are read.
+     *
+     * @param metainfDir directory with the *.autogenerated blacklists
+     * @param sourceDir  the source tree
+     * @param cacheDir   directory to keep the source index in
+     * @return the modules and sets of the source tree
+     */
+    public static ModuleIndex scan(String metainfDir, String sourceDir, String cacheDir) {
+        MakeJavafilesFiles processor = new MakeJavafilesFiles(metainfDir, sourceDir, cacheDir);
+        processor.processJavaSourceFiles(new File(sourceDir));
+        return processor.getModuleIndex();
+    }
+
+    /**
+     * @param className a fully qualified class name
+     * @return the module of the class, or null if the class is unknown
+     */
+    public String getModule(String className) {
+        return classModules.get(className);
+    }
+
+    /**
+     * @param module the module name
+     * @return the classes of the module in listing order, empty if unknown
+     */
+    public List<String> getClasses(String module) {
+        List<String> classes = moduleClasses.get(module);
+        return classes == null ? Collections.<String>emptyList() : classes;
+    }
+
+    /**
+     * @param set the set name
+     * @return the classes of the set in listing order, empty if unknown
+     */
+    public List<String> getSetClasses(String set) {
+        List<String> classes = setClasses.get(set);
+        return classes == null ? Collections.<String>emptyList() : classes;
+    }
+
+    /**
+     * @return the names of all modules, sorted
+     */
+    public Set<String> getModules() {
+        return modules;
+    }
+
+    /**
+     * @return the names of all sets, sorted
+     */
+    public Set<String> getSets() {
+        return sets;
+    }
+}
@@ -0,0 +1,336 @@
+/* Copyright (C) 2026  The CDK Development Team <cdk-devel@lists.sourceforge.net>
+ *
+ * Contact: cdk-devel@lists.sourceforge.net
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 2.1
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package net.sf.cdk.tools;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The content of a {@link ModuleIndex} in a single binary file, which is
+ * memory mapped when opened. Looking up the module of a class is a binary
+ * search on the mapped file, without parsing the file or creating strings.
+ * All numbers are big endian ints:
+ *
+ * <pre>
+ *   magic 'CDKM', version
+ *   string count S, S+1 offsets into the string data, string data (UTF-8)
+ *   module count M, M times: name, first list entry, class count
+ *   set count N,    N times: name, first list entry, class count
+ *   list entry count L, L class names
+ *   class count C,  C times: class name, module number
+ * </pre>
+ *
+ * Names are numbers of strings in the string table. Modules and sets are
+ * sorted by the UTF-8 bytes of their names, and their classes are in listing order. The last table
+ * is sorted by the UTF-8 bytes of the class names.
+ *
+ * <p>Opened files are immutable and can be shared between threads. The file
+ * is replaced atomically when written, so a mapped file is never seen half
+ * written.
+ */
+public class ModuleIndexFile {
+
+    private static final int MAGIC = 0x43444B4D; // CDKM
+    private static final int VERSION = 1;
+
+    private final ByteBuffer buffer;
+    private final int stringOffsets;
+    private final int stringData;
+    private final int modules;
+    private final int sets;
+    private final int lists;
+    private final int classes;
+
+    private ModuleIndexFile(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.limit() < 12 || buffer.getInt(0) != MAGIC)
+            throw new IOException("Not a module index file");
+        if (buffer.getInt(4) != VERSION)
+            throw new IOException("Unsupported module index version: " + buffer.getInt(4));
+        stringOffsets = 8;
+        int stringCount = buffer.getInt(stringOffsets);
+        stringData = stringOffsets + 4 + (stringCount + 1) * 4;
+        modules = stringData + buffer.getInt(stringOffsets + 4 + stringCount * 4);
+        sets = modules + 4 + buffer.getInt(modules) * 12;
+        lists = sets + 4 + buffer.getInt(sets) * 12;
+        classes = lists + 4 + buffer.getInt(lists) * 4;
+        if (classes + 4 + buffer.getInt(classes) * 8 != buffer.limit())
+            throw new IOException("Truncated module index file");
+    }
+
+    /**
+     * Maps the given module index file.
+     *
+     * @param file the file written by {@link #write(ModuleIndex, File)}
+     * @return the opened index
+     * @throws IOException if the file cannot be read or is not an index
+     */
+    public static ModuleIndexFile open(File file) throws IOException {
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            // the mapping stays valid after the channel is closed
+            return new ModuleIndexFile(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Writes the modules and sets of the index to the given file. An
+     * unchanged file is not rewritten.
+     *
+     * @param index the index to write
+     * @param file  the output file
+     * @throws IOException if the file could not be written
+     */
+    public static void write(ModuleIndex index, File file) throws IOException {
+        final List<byte[]> strings = new ArrayList<byte[]>();
+        final Map<String,Integer> stringNumbers = new HashMap<String,Integer>();
+        List<Integer> listEntries = new ArrayList<Integer>();
+        List<int[]> classEntries = new ArrayList<int[]>();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream tables = new DataOutputStream(bytes);
+        tables.writeInt(index.getModules().size());
+        int moduleNumber = 0;
+        for (String module : sortByBytes(index.getModules())) {
+            List<String> moduleClasses = index.getClasses(module);
+            tables.writeInt(addString(module, strings, stringNumbers));
+            tables.writeInt(listEntries.size());
+            tables.writeInt(moduleClasses.size());
+            for (String className : moduleClasses) {
+                int name = addString(className, strings, stringNumbers);
+                listEntries.add(name);
+                classEntries.add(new int[] { name, moduleNumber });
+            }
+            moduleNumber++;
+        }
+        tables.writeInt(index.getSets().size());
+        for (String set : sortByBytes(index.getSets())) {
+            List<String> setClasses = index.getSetClasses(set);
+            tables.writeInt(addString(set, strings, stringNumbers));
+            tables.writeInt(listEntries.size());
+            tables.writeInt(setClasses.size());
+            for (String className : setClasses) {
+                listEntries.add(addString(className, strings, stringNumbers));
+            }
+        }
+        tables.writeInt(listEntries.size());
+        for (Integer name : listEntries) {
+            tables.writeInt(name);
+        }
+        int[][] sorted = classEntries.toArray(new int[classEntries.size()][]);
+        Arrays.sort(sorted, new Comparator<int[]>() {
+            @Override
+            public int compare(int[] a, int[] b) {
+                return compareBytes(strings.get(a[0]), strings.get(b[0]));
+            }
+        });
+        tables.writeInt(sorted.length);
+        for (int[] entry : sorted) {
+            tables.writeInt(entry[0]);
+            tables.writeInt(entry[1]);
+        }
+        tables.flush();
+
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(content);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(strings.size());
+        int offset = 0;
+        for (byte[] string : strings) {
+            out.writeInt(offset);
+            offset += string.length;
+        }
+        out.writeInt(offset);
+        for (byte[] string : strings) {
+            out.write(string);
+        }
+        bytes.writeTo(out);
+        out.flush();
+        OutputFiles.writeIfChanged(file, content.toByteArray());
+    }
+
+    /**
+     * Sorts names by their UTF-8 bytes, the order of the binary search. The
+     * order of {@link String#compareTo(String)} differs from it for
+     * characters outside the Basic Multilingual Plane.
+     */
+    private static List<String> sortByBytes(Collection<String> names) {
+        List<String> sorted = new ArrayList<String>(names);
+        Collections.sort(sorted, new Comparator<String>() {
+            @Override
+            public int compare(String a, String b) {
+                return compareBytes(a.getBytes(StandardCharsets.UTF_8), b.getBytes(StandardCharsets.UTF_8));
+            }
+        });
+        return sorted;
+    }
+
+    private static int addString(String s, List<byte[]> strings, Map<String,Integer> numbers) {
+        Integer number = numbers.get(s);
+        if (number == null) {
+            number = strings.size();
+            strings.add(s.getBytes(StandardCharsets.UTF_8));
+            numbers.put(s, number);
+        }
+        return number;
+    }
+
+    private static int compareBytes(byte[] a, byte[] b) {
+        int n = Math.min(a.length, b.length);
+        for (int i=0; i<n; i++) {
+            if (a[i] != b[i]) return (a[i] & 0xff) - (b[i] & 0xff);
+        }
+        return a.length - b.length;
+    }
+
+    /**
+     * @param className a fully qualified class name
+     * @return the module of the class, or null if the class is unknown
+     */
+    public String getModule(String className) {
+        byte[] key = className.getBytes(StandardCharsets.UTF_8);
+        int low = 0;
+        int high = buffer.getInt(classes) - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int entry = classes + 4 + mid * 8;
+            int c = compareString(buffer.getInt(entry), key);
+            if (c < 0) low = mid + 1;
+            else if (c > 0) high = mid - 1;
+            else return getString(buffer.getInt(modules + 4 + buffer.getInt(entry + 4) * 12));
+        }
+        return null;
+    }
+
+    /** Compares the UTF-8 bytes of string <code>number</code> with the key. */
+    private int compareString(int number, byte[] key) {
+        int begin = stringData + buffer.getInt(stringOffsets + 4 + number * 4);
+        int length = stringData + buffer.getInt(stringOffsets + 8 + number * 4) - begin;
+        int n = Math.min(length, key.length);
+        for (int i=0; i<n; i++) {
+            int b = buffer.get(begin + i) & 0xff;
+            if (b != (key[i] & 0xff)) return b - (key[i] & 0xff);
+        }
+        return length - key.length;
+    }
+
+    private String getString(int number) {
+        int begin = stringData + buffer.getInt(stringOffsets + 4 + number * 4);
+        int end = stringData + buffer.getInt(stringOffsets + 8 + number * 4);
+        byte[] bytes = new byte[end - begin];
+        for (int i=0; i<bytes.length; i++) {
+            bytes[i] = buffer.get(begin + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param module the module name
+     * @return the classes of the module in listing order, empty if unknown
+     */
+    public List<String> getClasses(String module) {
+        return getList(modules, module);
+    }
+
+    /**
+     * @param set the set name
+     * @return the classes of the set in listing order, empty if unknown
+     */
+    public List<String> getSetClasses(String set) {
+        return getList(sets, set);
+    }
+
+    /**
+     * @return the names of all modules, sorted by their UTF-8 bytes
+     */
+    public List<String> getModules() {
+        return getNames(modules);
+    }
+
+    /**
+     * @return the names of all sets, sorted by their UTF-8 bytes
+     */
+    public List<String> getSets() {
+        return getNames(sets);
+    }
+
+    /** Binary search of a name in the module or set table. */
+    private List<String> getList(int table, String name) {
+        byte[] key = name.getBytes(StandardCharsets.UTF_8);
+        int low = 0;
+        int high = buffer.getInt(table) - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int entry = table + 4 + mid * 12;
+            int c = compareString(buffer.getInt(entry), key);
+            if (c < 0) low = mid + 1;
+            else if (c > 0) high = mid - 1;
+            else return new StringList(lists + 4 + buffer.getInt(entry + 4) * 4, buffer.getInt(entry + 8), 4);
+        }
+        return new StringList(lists + 4, 0, 4);
+    }
+
+    private List<String> getNames(int table) {
+        return new StringList(table + 4, buffer.getInt(table), 12);
+    }
+
+    /** Strings of a run of table entries, decoded when accessed. */
+    private class StringList extends AbstractList<String> {
+
+        private final int begin;
+        private final int size;
+        private final int stride;
+
+        StringList(int begin, int size, int stride) {
+            this.begin = begin;
+            this.size = size;
+            this.stride = stride;
+        }
+
+        @Override
+        public String get(int index) {
+            if (index < 0 || index >= size)
+                throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+            return getString(buffer.getInt(begin + index * stride));
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
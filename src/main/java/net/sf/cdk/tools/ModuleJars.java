@@ -0,0 +1,291 @@
+/* Copyright (C) 2026  The CDK Development Team <cdk-devel@lists.sourceforge.net>
+ *
+ * Contact: cdk-devel@lists.sourceforge.net
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 2.1
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package net.sf.cdk.tools;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+/**
+ * Creates the module jars from the listings written by
+ * {@link MakeJavafilesFiles}. The <code>package/Class*.class</code> patterns
+ * of the .classes files are resolved against the compiled classes, where
+ * every directory is listed only once for all modules, and the jars are
+ * written in parallel, one module per thread.
+ *
+ * <p>Like the Ant build, a jar <code>cdk-&lt;module&gt;.jar</code> holds the
+ * classes matched by <code>&lt;module&gt;.classes</code> and
+ * <code>&lt;module&gt;.autogenerated.classes</code>, and the
+ * <code>&lt;module&gt;.javafiles</code> listing. The classes are taken from
+ * <code>&lt;classesDir&gt;/&lt;module&gt;</code> if that directory exists, and
+ * from <code>&lt;classesDir&gt;</code> otherwise. Jars that did not change
+ * are not rewritten.
+ */
+public class ModuleJars {
+
+    private final File classesDir;
+    private final File listingDir;
+    private final File jarDir;
+    private int threads = 1;
+
+    /** Sorted file names of each directory listed so far, by path. */
+    private final ConcurrentHashMap<File,String[]> listings = new ConcurrentHashMap<File,String[]>();
+
+    /**
+     * @param classesDir directory with the compiled classes
+     * @param listingDir directory with the .classes and .javafiles listings
+     * @param jarDir     directory to write the jars to
+     */
+    public ModuleJars(File classesDir, File listingDir, File jarDir) {
+        this.classesDir = classesDir;
+        this.listingDir = listingDir;
+        this.jarDir = jarDir;
+    }
+
+    /**
+     * @param threads number of jars written at the same time, at least one
+     */
+    public void setThreads(int threads) {
+        if (threads < 1)
+            throw new IllegalArgumentException("Need at least one thread: " + threads);
+        this.threads = threads;
+    }
+
+    /**
+     * @return the modules with a .classes listing, sorted
+     */
+    public List<String> findModules() {
+        List<String> modules = new ArrayList<String>();
+        String[] names = listingDir.list();
+        if (names == null) return modules;
+        Arrays.sort(names);
+        for (String name : names) {
+            if (name.endsWith(".classes") && !name.endsWith(".autogenerated.classes")) {
+                modules.add(name.substring(0, name.length() - ".classes".length()));
+            }
+        }
+        return modules;
+    }
+
+    /**
+     * Writes the jars of the given modules.
+     *
+     * @param modules the modules
+     * @throws IOException if a listing could not be read or a jar not written
+     */
+    public void writeJars(Collection<String> modules) throws IOException {
+        if (!jarDir.isDirectory() && !jarDir.mkdirs())
+            throw new IOException("Could not create " + jarDir);
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+        for (final String module : modules) {
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() throws IOException {
+                    writeJar(module);
+                    return null;
+                }
+            });
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, tasks.size())));
+        try {
+            for (Future<Void> future : pool.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while writing the module jars", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Writes the jar of a single module.
+     *
+     * @param module the module
+     * @return true if the jar was written, false if it was unchanged
+     * @throws IOException if a listing could not be read or the jar not written
+     */
+    public boolean writeJar(String module) throws IOException {
+        File moduleClassesDir = new File(classesDir, module);
+        if (!moduleClassesDir.isDirectory()) moduleClassesDir = classesDir;
+        Set<String> entries = resolve(moduleClassesDir, new File(listingDir, module + ".classes"));
+        entries.addAll(resolve(moduleClassesDir, new File(listingDir, module + ".autogenerated.classes")));
+
+        File javafiles = new File(listingDir, module + ".javafiles");
+        // entries without a file of their own get the time of the newest
+        // file, so that the jar of unchanged classes is the same every time
+        long time = javafiles.lastModified();
+        for (String entry : entries) {
+            time = Math.max(time, new File(moduleClassesDir, entry).lastModified());
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        JarOutputStream jar = new JarOutputStream(bytes);
+        try {
+            Set<String> directories = new HashSet<String>();
+            addDirectories(jar, JarFile.MANIFEST_NAME, directories, time);
+            JarEntry manifestEntry = new JarEntry(JarFile.MANIFEST_NAME);
+            manifestEntry.setTime(time);
+            jar.putNextEntry(manifestEntry);
+            Manifest manifest = new Manifest();
+            manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+            manifest.write(jar);
+            jar.closeEntry();
+            for (String entry : entries) {
+                addDirectories(jar, entry, directories, time);
+                addFile(jar, entry, new File(moduleClassesDir, entry));
+            }
+            if (javafiles.isFile()) addFile(jar, javafiles.getName(), javafiles);
+        } finally {
+            jar.close();
+        }
+        return OutputFiles.writeIfChanged(new File(jarDir, "cdk-" + module + ".jar"), bytes.toByteArray());
+    }
+
+    /**
+     * Resolves the patterns of a .classes listing.
+     *
+     * @param dir     the classes directory
+     * @param listing the listing, which need not exist
+     * @return the matching files relative to the directory, in the order of
+     *         the patterns, with '/' as separator
+     */
+    Set<String> resolve(File dir, File listing) throws IOException {
+        Set<String> files = new LinkedHashSet<String>();
+        if (!listing.isFile()) return files;
+        BufferedReader reader = new BufferedReader(new FileReader(listing));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim().replace('\\', '/');
+                if (line.length() > 0) resolve(dir, line, files);
+            }
+        } finally {
+            reader.close();
+        }
+        return files;
+    }
+
+    private void resolve(File dir, String pattern, Set<String> files) throws IOException {
+        int slash = pattern.lastIndexOf('/');
+        String path = pattern.substring(0, slash + 1);
+        String name = pattern.substring(slash + 1);
+        if (path.indexOf('*') != -1 || path.indexOf('?') != -1)
+            throw new IOException("Only file names may have wildcards: " + pattern);
+        String[] names = list(new File(dir, path));
+        // names with the literal start of the pattern form a sorted range
+        int literal = 0;
+        while (literal < name.length() && name.charAt(literal) != '*' && name.charAt(literal) != '?') literal++;
+        String prefix = name.substring(0, literal);
+        int i = Arrays.binarySearch(names, prefix);
+        if (i < 0) i = -i - 1;
+        for (; i < names.length && names[i].startsWith(prefix); i++) {
+            if (PathPatternSet.matchesName(name, literal, names[i], literal)) files.add(path + names[i]);
+        }
+    }
+
+    /** Sorted names of the files in the directory, listed once. */
+    private String[] list(File dir) {
+        String[] names = listings.get(dir);
+        if (names == null) {
+            File[] children = dir.listFiles();
+            List<String> fileNames = new ArrayList<String>();
+            if (children != null) {
+                for (File child : children) {
+                    if (child.isFile()) fileNames.add(child.getName());
+                }
+            }
+            names = fileNames.toArray(new String[fileNames.size()]);
+            Arrays.sort(names);
+            String[] listed = listings.putIfAbsent(dir, names);
+            if (listed != null) names = listed;
+        }
+        return names;
+    }
+
+    private static void addDirectories(JarOutputStream jar, String entry, Set<String> directories, long time)
+        throws IOException {
+        for (int slash = entry.indexOf('/'); slash != -1; slash = entry.indexOf('/', slash + 1)) {
+            String directory = entry.substring(0, slash + 1);
+            if (directories.add(directory)) {
+                JarEntry directoryEntry = new JarEntry(directory);
+                directoryEntry.setTime(time);
+                jar.putNextEntry(directoryEntry);
+                jar.closeEntry();
+            }
+        }
+    }
+
+    private static void addFile(JarOutputStream jar, String name, File file) throws IOException {
+        JarEntry entry = new JarEntry(name);
+        entry.setTime(file.lastModified());
+        jar.putNextEntry(entry);
+        Files.copy(file.toPath(), jar);
+        jar.closeEntry();
+    }
+
+    public static void main(String[] args) {
+        int threads = Runtime.getRuntime().availableProcessors();
+        int argc = 0;
+        if (args.length > 1 && args[0].equals("-threads")) {
+            threads = Integer.parseInt(args[1]);
+            argc = 2;
+        }
+        if (args.length - argc < 3) {
+            System.out.println("Syntax: ModuleJars [-threads <n>] <classesDir> <listingDir> <jarDir> [<module>...]");
+            System.exit(-1);
+        }
+        ModuleJars jars = new ModuleJars(new File(args[argc]), new File(args[argc+1]), new File(args[argc+2]));
+        jars.setThreads(threads);
+        List<String> modules = new ArrayList<String>();
+        for (int i=argc+3; i<args.length; i++) modules.add(args[i]);
+        if (modules.isEmpty()) modules = jars.findModules();
+        try {
+            jars.writeJars(modules);
+        } catch (IOException e) {
+            System.out.println("Could not write the module jars: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/* Copyright (C) 2026  The CDK Development Team <cdk-devel@lists.sourceforge.net>
+ *
+ * Contact: cdk-devel@lists.sourceforge.net
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 2.1
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package net.sf.cdk.tools;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * Writes generated files such that unchanged files keep their timestamp,
+ * which keeps the up-to-date checks of later build steps working, and such
+ * that readers never see a partially written file.
+ */
+public class OutputFiles {
+
+    private OutputFiles() {}
+
+    /**
+     * Replaces the content of the given file, unless it already has exactly
+     * this content. The new content is written to a temporary file in the
+     * same directory, which is then atomically moved over the old file.
+     *
+     * @param file    the file to write
+     * @param content the new content
+     * @return true if the file was written, false if it was unchanged
+     * @throws IOException if the file could not be read or written
+     */
+    public static boolean writeIfChanged(File file, byte[] content) throws IOException {
+        Path target = file.toPath();
+        if (Files.isRegularFile(target) && Files.size(target) == content.length &&
+            Arrays.equals(digest(target), digest(content))) {
+            return false;
+        }
+        // not Files.createTempFile(), which would make the file owner-only readable
+        Path tmp = target.resolveSibling("." + file.getName() + "." +
+                                         Long.toHexString(System.nanoTime()) + ".tmp");
+        try {
+            Files.write(tmp, content, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            try {
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        return true;
+    }
+
+    private static byte[] digest(byte[] content) {
+        MessageDigest digest = newDigest();
+        digest.update(content);
+        return digest.digest();
+    }
+
+    private static byte[] digest(Path path) throws IOException {
+        MessageDigest digest = newDigest();
+        byte[] buffer = new byte[8192];
+        InputStream in = Files.newInputStream(path);
+        try {
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, n);
+            }
+        } finally {
+            in.close();
+        }
+        return digest.digest();
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+/* Copyright (C) 2026  The CDK Development Team <cdk-devel@lists.sourceforge.net>
+ *
+ * Contact: cdk-devel@lists.sourceforge.net
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 2.1
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package net.sf.cdk.tools;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Set of Ant style path patterns, like the lines of the *.autogenerated
+ * blacklists. Plain paths are kept in a hash set. Patterns with wildcards
+ * are compiled into a trie of path segments, where '*' and '?' match within
+ * a segment, '**' matches any number of segments, and a trailing '/' stands
+ * for '/**'. Either '/' or '\' separates segments.
+ *
+ * <p>Looking up a path costs a hash lookup, plus a walk along the path for
+ * each matching branch of the trie if there are patterns. Lookups do not
+ * modify the set, so a filled set can be shared between threads.
+ */
+class PathPatternSet {
+
+    private final Set<String> paths = new HashSet<String>();
+    private final Node        root = new Node();
+    private boolean           hasPatterns = false;
+
+    /**
+     * Adds a path or pattern. Surrounding whitespace is ignored, as are
+     * empty lines.
+     *
+     * @param pattern the path or pattern
+     */
+    void add(String pattern) {
+        pattern = pattern.trim().replace('\\', '/');
+        if (pattern.length() == 0) return;
+        if (pattern.endsWith("/")) pattern += "**";
+        if (pattern.indexOf('*') == -1 && pattern.indexOf('?') == -1) {
+            paths.add(pattern);
+            return;
+        }
+        Node node = root;
+        for (String segment : pattern.split("/")) {
+            node = node.child(segment);
+        }
+        node.terminal = true;
+        hasPatterns = true;
+    }
+
+    /**
+     * @param path a relative path
+     * @return true if the path is in the set or matches a pattern
+     */
+    boolean contains(String path) {
+        if (path.indexOf('\\') != -1) path = path.replace('\\', '/');
+        if (paths.contains(path)) return true;
+        return hasPatterns && matches(root, path.split("/"), 0);
+    }
+
+    /** @return true if nothing was added */
+    boolean isEmpty() {
+        return paths.isEmpty() && !hasPatterns;
+    }
+
+    private static boolean matches(Node node, String[] segments, int i) {
+        if (node.anyDepth != null) {
+            for (int j=i; j<=segments.length; j++) {
+                if (matches(node.anyDepth, segments, j)) return true;
+            }
+        }
+        if (i == segments.length) return node.terminal;
+        if (node.literals != null) {
+            Node next = node.literals.get(segments[i]);
+            if (next != null && matches(next, segments, i + 1)) return true;
+        }
+        if (node.wildcards != null) {
+            for (int w=0; w<node.wildcards.size(); w++) {
+                if (matchesName(node.wildcards.get(w), 0, segments[i], 0) &&
+                    matches(node.wildcardNodes.get(w), segments, i + 1)) return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Matches a single path segment against a segment pattern, where '*' is
+     * any text and '?' any character, starting at the given positions.
+     *
+     * @param pattern the segment pattern
+     * @param p       position in the pattern
+     * @param name    the segment
+     * @param n       position in the segment
+     * @return true if the rest of the segment matches the rest of the pattern
+     */
+    static boolean matchesName(String pattern, int p, String name, int n) {
+        while (p < pattern.length()) {
+            char c = pattern.charAt(p);
+            if (c == '*') {
+                if (p + 1 == pattern.length()) return true;
+                for (int i=n; i<=name.length(); i++) {
+                    if (matchesName(pattern, p + 1, name, i)) return true;
+                }
+                return false;
+            }
+            if (n == name.length() || (c != '?' && c != name.charAt(n))) return false;
+            p++;
+            n++;
+        }
+        return n == name.length();
+    }
+
+    /** Trie node for a pattern segment. */
+    private static class Node {
+
+        Map<String,Node> literals;
+        List<String>     wildcards;
+        List<Node>       wildcardNodes;
+        Node             anyDepth;
+        boolean          terminal;
+
+        Node child(String segment) {
+            if (segment.equals("**")) {
+                if (anyDepth == null) anyDepth = new Node();
+                return anyDepth;
+            }
+            if (segment.indexOf('*') != -1 || segment.indexOf('?') != -1) {
+                if (wildcards == null) {
+                    wildcards = new ArrayList<String>();
+                    wildcardNodes = new ArrayList<Node>();
+                }
+                int w = wildcards.indexOf(segment);
+                if (w == -1) {
+                    wildcards.add(segment);
+                    wildcardNodes.add(new Node());
+                    w = wildcards.size() - 1;
+                }
+                return wildcardNodes.get(w);
+            }
+            if (literals == null) literals = new HashMap<String,Node>();
+            Node node = literals.get(segment);
+            if (node == null) {
+                node = new Node();
+                literals.put(segment, node);
+            }
+            return node;
+        }
+    }
+}
@@ -0,0 +1,266 @@
+/* Copyright (C) 2026  The CDK Development Team <cdk-devel@lists.sourceforge.net>
+ *
+ * Contact: cdk-devel@lists.sourceforge.net
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 2.1
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package net.sf.cdk.tools;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Metrics of a source scan: the files listed and read, the bytes and header
+ * lines read, the time spent in each phase and the files that took longest
+ * to read. Files are recorded by the reading threads concurrently.
+ *
+ * <p>The same measurements are also emitted as JDK Flight Recorder events,
+ * which cost next to nothing unless a recording is running, e.g. with
+ * <code>-XX:StartFlightRecording</code>.
+ */
+public class ScanStatistics {
+
+    /** Phases of a scan that are timed. */
+    public enum Phase {
+        LISTING, PARSING, OUTPUT;
+    }
+
+    /** Number of slowest files kept. */
+    private static final int SLOWEST = 10;
+
+    private final LongAdder filesListed = new LongAdder();
+    private final LongAdder filesRead = new LongAdder();
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder linesRead = new LongAdder();
+    private final AtomicLong maxLines = new AtomicLong();
+    private final LongAdder[] phaseNanos = new LongAdder[Phase.values().length];
+
+    /** Slowest files so far, fastest first. */
+    private final PriorityQueue<FileTiming> slowest = new PriorityQueue<FileTiming>(SLOWEST + 1, BY_TIME);
+    /** Read time a file needs to get into {@link #slowest}. */
+    private volatile long slowestThreshold = 0;
+
+    public ScanStatistics() {
+        for (int i=0; i<phaseNanos.length; i++) {
+            phaseNanos[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * @param count number of files listed for reading
+     */
+    public void addFilesListed(int count) {
+        filesListed.add(count);
+    }
+
+    /**
+     * Records the time spent in a phase.
+     *
+     * @param phase     the phase
+     * @param startNanos the {@link System#nanoTime()} at the start of the phase
+     */
+    public void addPhase(Phase phase, long startNanos) {
+        long nanos = System.nanoTime() - startNanos;
+        phaseNanos[phase.ordinal()].add(nanos);
+        PhaseEvent event = new PhaseEvent();
+        if (event.shouldCommit()) {
+            event.phase = phase.name();
+            event.time = nanos;
+            event.commit();
+        }
+    }
+
+    /**
+     * Records the read of a file.
+     *
+     * @param file  the file
+     * @param nanos time spent reading and analyzing the file
+     * @param bytes bytes read from the file
+     * @param lines header lines passed to the analyzers
+     */
+    public void addFile(File file, long nanos, long bytes, long lines) {
+        filesRead.increment();
+        bytesRead.add(bytes);
+        linesRead.add(lines);
+        long max;
+        while (lines > (max = maxLines.get()) && !maxLines.compareAndSet(max, lines));
+        if (nanos > slowestThreshold) {
+            synchronized (slowest) {
+                slowest.add(new FileTiming(file.getPath(), nanos, bytes, lines));
+                if (slowest.size() > SLOWEST) {
+                    slowest.poll();
+                    slowestThreshold = slowest.peek().nanos;
+                }
+            }
+        }
+        FileReadEvent event = new FileReadEvent();
+        if (event.shouldCommit()) {
+            event.path = file.getPath();
+            event.bytes = bytes;
+            event.lines = lines;
+            event.readTime = nanos;
+            event.commit();
+        }
+    }
+
+    /** @return number of files listed for reading */
+    public long getFilesListed() {
+        return filesListed.sum();
+    }
+
+    /** @return number of files read */
+    public long getFilesRead() {
+        return filesRead.sum();
+    }
+
+    /** @return number of bytes read */
+    public long getBytesRead() {
+        return bytesRead.sum();
+    }
+
+    /** @return number of header lines read */
+    public long getLinesRead() {
+        return linesRead.sum();
+    }
+
+    /**
+     * @param phase the phase
+     * @return nanoseconds spent in the phase
+     */
+    public long getNanos(Phase phase) {
+        return phaseNanos[phase.ordinal()].sum();
+    }
+
+    /**
+     * @return the slowest files, slowest first
+     */
+    public List<FileTiming> getSlowestFiles() {
+        List<FileTiming> files;
+        synchronized (slowest) {
+            files = new ArrayList<FileTiming>(slowest);
+        }
+        Collections.sort(files, Collections.reverseOrder(BY_TIME));
+        return files;
+    }
+
+    /**
+     * @return the statistics as a JSON object
+     */
+    public String toJson() {
+        long files = getFilesRead();
+        StringBuilder json = new StringBuilder();
+        json.append("{\n");
+        json.append("  \"filesListed\": ").append(getFilesListed()).append(",\n");
+        json.append("  \"filesRead\": ").append(files).append(",\n");
+        json.append("  \"bytesRead\": ").append(getBytesRead()).append(",\n");
+        json.append("  \"headerLines\": { \"total\": ").append(getLinesRead())
+            .append(", \"max\": ").append(maxLines.get())
+            .append(", \"mean\": ").append(files == 0 ? 0 : Math.round(10.0 * getLinesRead() / files) / 10.0)
+            .append(" },\n");
+        json.append("  \"millis\": {");
+        for (Phase phase : Phase.values()) {
+            json.append(phase.ordinal() == 0 ? " " : ", ")
+                .append('"').append(phase.name().toLowerCase(Locale.ROOT)).append("\": ")
+                .append(getNanos(phase) / 1000000);
+        }
+        json.append(" },\n");
+        json.append("  \"slowestFiles\": [");
+        List<FileTiming> timings = getSlowestFiles();
+        for (int i=0; i<timings.size(); i++) {
+            FileTiming timing = timings.get(i);
+            json.append(i == 0 ? "\n" : ",\n");
+            json.append("    { \"path\": ").append(Json.quote(timing.path))
+                .append(", \"micros\": ").append(timing.nanos / 1000)
+                .append(", \"bytes\": ").append(timing.bytes)
+                .append(", \"lines\": ").append(timing.lines).append(" }");
+        }
+        json.append(timings.isEmpty() ? "]\n" : "\n  ]\n");
+        json.append("}\n");
+        return json.toString();
+    }
+
+    /**
+     * Writes the statistics as JSON to the given file.
+     *
+     * @param file the report file
+     * @throws IOException if the file could not be written
+     */
+    public void write(File file) throws IOException {
+        OutputFiles.writeIfChanged(file, toJson().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** Read time and size of a single file. */
+    public static class FileTiming {
+
+        public final String path;
+        public final long   nanos;
+        public final long   bytes;
+        public final long   lines;
+
+        FileTiming(String path, long nanos, long bytes, long lines) {
+            this.path = path;
+            this.nanos = nanos;
+            this.bytes = bytes;
+            this.lines = lines;
+        }
+    }
+
+    private static final Comparator<FileTiming> BY_TIME = new Comparator<FileTiming>() {
+        @Override
+        public int compare(FileTiming a, FileTiming b) {
+            return Long.compare(a.nanos, b.nanos);
+        }
+    };
+
+    @Name("net.sf.cdk.tools.SourceFileRead")
+    @Label("Source File Read")
+    @Category({"CDK", "Build Tools"})
+    static class FileReadEvent extends Event {
+        @Label("Path")
+        String path;
+        @Label("Bytes Read") @DataAmount
+        long bytes;
+        @Label("Header Lines")
+        long lines;
+        @Label("Read Time") @Timespan
+        long readTime;
+    }
+
+    @Name("net.sf.cdk.tools.ScanPhase")
+    @Label("Source Scan Phase")
+    @Category({"CDK", "Build Tools"})
+    static class PhaseEvent extends Event {
+        @Label("Phase")
+        String phase;
+        @Label("Time") @Timespan
+        long time;
+    }
+}
@@ -0,0 +1,63 @@
+/* Copyright (C) 2026  The CDK Development Team <cdk-devel@lists.sourceforge.net>
+ *
+ * Contact: cdk-devel@lists.sourceforge.net
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 2.1
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package net.sf.cdk.tools;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Check run on the header of Java source files by a {@link SourcePipeline}.
+ * The pipeline reads each file once and passes its lines to all analyzers,
+ * until none of them wants more lines. Lines are passed as a byte range of
+ * the read buffer, without line terminator, and are only valid during the
+ * call.
+ *
+ * <p>Each worker thread of a pipeline has its own analyzer instances, so
+ * implementations need not be thread safe, but must publish their results
+ * in a thread safe way.
+ */
+public interface SourceAnalyzer {
+
+    /**
+     * Called before the first line of a file.
+     *
+     * @param index position of the file in the list given to the pipeline
+     * @param file  the file
+     */
+    void start(int index, File file);
+
+    /**
+     * Analyzes the line [begin,end) of the buffer.
+     *
+     * @param buffer the read buffer
+     * @param begin  index of the first byte of the line
+     * @param end    index after the last byte of the line
+     * @return true if more lines of this file are wanted
+     */
+    boolean analyzeLine(ByteBuffer buffer, int begin, int end);
+
+    /**
+     * Called after the last line passed to this analyzer, at the end of the
+     * file, when no analyzer wants more lines, or when reading failed.
+     *
+     * @param error the read error, or null
+     */
+    void end(IOException error);
+}
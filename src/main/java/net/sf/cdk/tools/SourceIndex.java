@@ -0,0 +1,293 @@
+/* Copyright (C) 2026  The CDK Development Team <cdk-devel@lists.sourceforge.net>
+ *
+ * Contact: cdk-devel@lists.sourceforge.net
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 2.1
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package net.sf.cdk.tools;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * On-disk index of the module and set of each Java source file, used by
+ * {@link MakeJavafilesFiles} to only read the files that changed since the
+ * previous run. Each entry stores the size and modification time of a
+ * file, along with the module and set found in it and, when dependencies
+ * are computed, the names it imports. Files without a complete header are
+ * kept too, with their size and modification time only, so that they are
+ * not read again on every run while they stay unchanged.
+ *
+ * <p>Files modified within {@link #MTIME_GRANULARITY} milliseconds before
+ * the index was written are not trusted, as a later edit may not have
+ * changed their modification time.
+ */
+class SourceIndex {
+
+    private static final String HEADER = "# MakeJavafilesFiles source index 4";
+
+    /** Coarsest modification time resolution of the supported file systems. */
+    static final long MTIME_GRANULARITY = 2000;
+
+    /** Module and set of a single source file. */
+    static class Entry {
+
+        final long   size;
+        final long   lastModified;
+        final String module;
+        final String set;
+        /** Imported names, or null if the imports were not collected. */
+        final String[] imports;
+
+        Entry(long size, long lastModified, String module, String set, String[] imports) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.module = module;
+            this.set = set;
+            this.imports = imports;
+        }
+
+        /**
+         * @return an entry for a file that could be read but has no complete
+         *         header, like a file without a type declaration
+         */
+        static Entry broken(long size, long lastModified) {
+            return new Entry(size, lastModified, null, null, null);
+        }
+
+        /** @return true if the file has no complete header */
+        boolean isBroken() {
+            return module == null;
+        }
+    }
+
+    /**
+     * Orders source file paths, relative to the source directory and without
+     * the .java extension, the way {@link MakeJavafilesFiles} lists them: depth
+     * first, with the entries of each directory in reverse name order.
+     */
+    static final Comparator<String> LISTING_ORDER = new Comparator<String>() {
+        @Override
+        public int compare(String a, String b) {
+            int i = 0;
+            int j = 0;
+            while (true) {
+                int endA = nextSeparator(a, i);
+                int endB = nextSeparator(b, j);
+                String nameA = endA == -1 ? a.substring(i) + ".java" : a.substring(i, endA);
+                String nameB = endB == -1 ? b.substring(j) + ".java" : b.substring(j, endB);
+                int cmp = nameA.compareTo(nameB);
+                if (cmp != 0) return -cmp;
+                if (endA == -1 || endB == -1) {
+                    // a file and a directory with the same name
+                    return endA == endB ? 0 : endA == -1 ? -1 : 1;
+                }
+                i = endA + 1;
+                j = endB + 1;
+            }
+        }
+
+        private int nextSeparator(String path, int from) {
+            for (int i=from; i<path.length(); i++) {
+                char c = path.charAt(i);
+                if (c == '/' || c == '\\') return i;
+            }
+            return -1;
+        }
+    };
+
+    private final Map<String,Entry> entries = new TreeMap<String,Entry>(LISTING_ORDER);
+    /** Entries of the files without a complete header. */
+    private final Map<String,Entry> broken = new TreeMap<String,Entry>(LISTING_ORDER);
+    private long written = 0;
+
+    /**
+     * Returns the entry for the given source file if the file is unchanged
+     * since the index was written, null otherwise.
+     *
+     * @param path         path of the file, relative to the source directory
+     * @param size         current size of the file
+     * @param lastModified current modification time of the file
+     * @param needImports  whether the entry must have the imports of the file
+     * @return the up to date entry, which may be {@link Entry#isBroken()
+     *         broken}, or null if the file must be read again
+     */
+    Entry getUpToDate(String path, long size, long lastModified, boolean needImports) {
+        Entry entry = entries.get(path);
+        if (entry == null) entry = broken.get(path);
+        if (entry == null || entry.size != size ||
+            entry.lastModified != lastModified ||
+            lastModified >= written - MTIME_GRANULARITY ||
+            needImports && !entry.isBroken() && entry.imports == null) {
+            return null;
+        }
+        return entry;
+    }
+
+    Entry get(String path) {
+        return entries.get(path);
+    }
+
+    void put(String path, Entry entry) {
+        if (entry.isBroken()) {
+            entries.remove(path);
+            broken.put(path, entry);
+        } else {
+            broken.remove(path);
+            entries.put(path, entry);
+        }
+    }
+
+    /**
+     * @return the removed entry, or null if there was none or the file had
+     *         no complete header
+     */
+    Entry remove(String path) {
+        broken.remove(path);
+        return entries.remove(path);
+    }
+
+    /**
+     * Removes the entries of all files below a directory.
+     *
+     * @param prefix the directory path, ending with a separator
+     * @return the removed entries of files with a complete header
+     */
+    List<Entry> removeBelow(String prefix) {
+        List<Entry> removed = new ArrayList<Entry>();
+        for (Map<String,Entry> map : Arrays.asList(entries, broken)) {
+            Iterator<Map.Entry<String,Entry>> it = map.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String,Entry> e = it.next();
+                if (!e.getKey().startsWith(prefix)) continue;
+                if (!e.getValue().isBroken()) removed.add(e.getValue());
+                it.remove();
+            }
+        }
+        return removed;
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return the entries by source file path, in {@link #LISTING_ORDER},
+     *         without the files that have no complete header
+     */
+    Map<String,Entry> getEntries() {
+        return Collections.unmodifiableMap(entries);
+    }
+
+    /**
+     * Reads a previously saved index. A missing or unreadable index file
+     * gives an empty index, which makes all files be read again.
+     *
+     * @param file the index file
+     * @return the index read from the file
+     */
+    static SourceIndex read(File file) {
+        SourceIndex index = new SourceIndex();
+        if (!file.exists()) return index;
+        try {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new FileInputStream(file), StandardCharsets.UTF_8
+            ));
+            try {
+                String line = reader.readLine();
+                if (line == null || !line.startsWith(HEADER + " ")) return index;
+                long written = Long.parseLong(line.substring(HEADER.length()+1));
+                while ((line = reader.readLine()) != null) {
+                    String[] fields = line.split("\t", -1);
+                    if (fields.length != 6) return new SourceIndex();
+                    index.put(fields[0], new Entry(
+                        Long.parseLong(fields[1]),
+                        Long.parseLong(fields[2]),
+                        fields[3].length() == 0 ? null : fields[3],
+                        fields[4].length() == 0 ? null : fields[4],
+                        readImports(fields[5])
+                    ));
+                }
+                index.written = written;
+            } finally {
+                reader.close();
+            }
+        } catch (IOException | NumberFormatException e) {
+            System.out.println("Ignoring unreadable source index " + file + ": " + e.getMessage());
+            return new SourceIndex();
+        }
+        return index;
+    }
+
+    private static String[] readImports(String field) {
+        if (field.equals("-")) return null;
+        if (field.length() == 0) return new String[0];
+        return field.split(" ");
+    }
+
+    private static String writeImports(String[] imports) {
+        if (imports == null) return "-";
+        StringBuilder sb = new StringBuilder();
+        for (String name : imports) {
+            if (sb.length() > 0) sb.append(' ');
+            sb.append(name);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Saves this index.
+     *
+     * @param file the index file
+     * @throws IOException if the index could not be written
+     */
+    void write(File file) throws IOException {
+        written = System.currentTimeMillis();
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(content, StandardCharsets.UTF_8));
+        try {
+            writer.write(HEADER + " " + written + "\n");
+            // files without a complete header have an empty module
+            for (Map<String,Entry> map : Arrays.asList(entries, broken)) {
+                for (Map.Entry<String,Entry> e : map.entrySet()) {
+                    Entry entry = e.getValue();
+                    writer.write(e.getKey() + "\t" + entry.size + "\t" + entry.lastModified + "\t" +
+                                 (entry.module == null ? "" : entry.module) + "\t" +
+                                 (entry.set == null ? "" : entry.set) + "\t" +
+                                 writeImports(entry.imports) + "\n");
+                }
+            }
+        } finally {
+            writer.close();
+        }
+        OutputFiles.writeIfChanged(file, content.toByteArray());
+    }
+}
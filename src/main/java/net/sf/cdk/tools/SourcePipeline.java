@@ -0,0 +1,262 @@
+/* Copyright (C) 2026  The CDK Development Team <cdk-devel@lists.sourceforge.net>
+ *
+ * Contact: cdk-devel@lists.sourceforge.net
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 2.1
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package net.sf.cdk.tools;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Supplier;
+
+/**
+ * Walks a source tree and reads the header of each Java source file once,
+ * passing its lines to all registered {@link SourceAnalyzer}s. Adding a
+ * check to the pipeline therefore costs no extra file system access.
+ * Files are read by a fork/join pool if more than one thread is set.
+ *
+ * <pre>
+ *   SourcePipeline pipeline = new SourcePipeline();
+ *   pipeline.addAnalyzer(MyAnalyzer::new);
+ *   pipeline.run(SourcePipeline.listJavaSourceFiles(new File("src/main")));
+ * </pre>
+ */
+public class SourcePipeline {
+
+    private final List<Supplier<? extends SourceAnalyzer>> factories =
+        new ArrayList<Supplier<? extends SourceAnalyzer>>();
+    private ThreadLocal<Worker> workers = newWorkers();
+    private int threads = 1;
+    private ScanStatistics statistics = null;
+
+    /**
+     * Adds an analyzer to run on every file. The factory is called once for
+     * each thread reading files.
+     *
+     * @param factory creates the analyzer instances
+     */
+    public void addAnalyzer(Supplier<? extends SourceAnalyzer> factory) {
+        factories.add(factory);
+        workers = newWorkers();
+    }
+
+    /**
+     * @return the number of analyzers added
+     */
+    public int getAnalyzerCount() {
+        return factories.size();
+    }
+
+    /**
+     * Sets the number of threads reading files. With one thread, the default,
+     * all files are read on the calling thread.
+     *
+     * @param threads number of threads, at least one
+     */
+    public void setThreads(int threads) {
+        if (threads < 1)
+            throw new IllegalArgumentException("Need at least one thread: " + threads);
+        this.threads = threads;
+    }
+
+    /**
+     * Sets the statistics to record each file read in.
+     *
+     * @param statistics the statistics, or null to not record them
+     */
+    public void setStatistics(ScanStatistics statistics) {
+        this.statistics = statistics;
+    }
+
+    /**
+     * Reads all given files.
+     *
+     * @param files the files to read
+     */
+    public void run(List<File> files) {
+        int[] all = new int[files.size()];
+        for (int i=0; i<all.length; i++) all[i] = i;
+        run(files, all, all.length);
+    }
+
+    /**
+     * Reads the given files at the selected positions. The analyzers see the
+     * positions as file index.
+     *
+     * @param files    the files
+     * @param selected positions in the file list of the files to read
+     * @param count    number of selected positions
+     */
+    public void run(List<File> files, int[] selected, int count) {
+        if (threads > 1 && count > 1) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                pool.invoke(new ReadTask(files, selected, 0, count));
+            } finally {
+                pool.shutdown();
+            }
+        } else {
+            Worker worker = workers.get();
+            for (int i=0; i<count; i++) {
+                worker.read(selected[i], files.get(selected[i]));
+            }
+        }
+    }
+
+    /**
+     * Lists the Java source files below the given directory, depth first
+     * and in reverse name order. Sources in net/sf are skipped.
+     *
+     * @param root the source directory
+     * @return the Java source files
+     */
+    public static List<File> listJavaSourceFiles(File root) {
+        List<File> files = new ArrayList<File>();
+        listJavaSourceFiles(root, files);
+        return files;
+    }
+
+    private static void listJavaSourceFiles(File path, List<File> files) {
+        if (path.isDirectory()) {
+            File[] children = path.listFiles();
+            // listFiles() gives no ordering guarantee, sort to get the same
+            // listings on every file system
+            Arrays.sort(children, BY_NAME);
+            for (int i=children.length; i>0; i--) {
+                listJavaSourceFiles(children[i-1], files);
+            }
+        } else if (path.isFile() && isJavaSourceFile(path.getPath())) {
+            files.add(path);
+        }
+    }
+
+    /**
+     * Sorts files in the order {@link #listJavaSourceFiles(File)} gives them,
+     * for lists of files that were not found by walking the tree.
+     *
+     * @param files the files, all below the same directory
+     */
+    public static void sortInListingOrder(List<File> files) {
+        files.sort(LISTING_ORDER);
+    }
+
+    /** Compares the paths name by name, like the depth first walk. */
+    private static final Comparator<File> LISTING_ORDER = new Comparator<File>() {
+        @Override
+        public int compare(File a, File b) {
+            String[] namesA = a.getPath().split("[/\\\\]");
+            String[] namesB = b.getPath().split("[/\\\\]");
+            for (int i=0; i<namesA.length && i<namesB.length; i++) {
+                int cmp = namesA[i].compareTo(namesB[i]);
+                if (cmp != 0) return -cmp;
+            }
+            return namesA.length - namesB.length;
+        }
+    };
+
+    /** Sorts files by name; File.compareTo() ignores case on Windows. */
+    private static final Comparator<File> BY_NAME = new Comparator<File>() {
+        @Override
+        public int compare(File a, File b) {
+            return a.getName().compareTo(b.getName());
+        }
+    };
+
+    /**
+     * @param path a file path
+     * @return true for Java source files outside net/sf
+     */
+    public static boolean isJavaSourceFile(String path) {
+        return path.endsWith(".java") &&
+               !(path.indexOf("net/sf") != -1 || path.indexOf("net\\sf") != -1);
+    }
+
+    private ThreadLocal<Worker> newWorkers() {
+        return new ThreadLocal<Worker>() {
+            @Override
+            protected Worker initialValue() {
+                return new Worker();
+            }
+        };
+    }
+
+    /** Reader and analyzers of a single thread. */
+    private class Worker {
+
+        private final SourceReader     reader = new SourceReader();
+        private final SourceAnalyzer[] analyzers = new SourceAnalyzer[factories.size()];
+
+        Worker() {
+            for (int i=0; i<analyzers.length; i++) {
+                analyzers[i] = factories.get(i).get();
+            }
+        }
+
+        void read(int index, File file) {
+            if (statistics == null) {
+                reader.read(index, file, analyzers);
+            } else {
+                long start = System.nanoTime();
+                reader.read(index, file, analyzers);
+                statistics.addFile(file, System.nanoTime() - start,
+                                   reader.getBytesRead(), reader.getLinesRead());
+            }
+        }
+    }
+
+    /**
+     * Reads a range of the selected files, splitting the range until it is
+     * small enough to be read by a single worker.
+     */
+    private class ReadTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        /** Number of files below which a range is not split any further. */
+        private static final int THRESHOLD = 32;
+
+        private final List<File> files;
+        private final int[] selected;
+        private final int begin;
+        private final int end;
+
+        ReadTask(List<File> files, int[] selected, int begin, int end) {
+            this.files = files;
+            this.selected = selected;
+            this.begin = begin;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - begin <= THRESHOLD) {
+                Worker worker = workers.get();
+                for (int i=begin; i<end; i++) {
+                    worker.read(selected[i], files.get(selected[i]));
+                }
+            } else {
+                int mid = (begin + end) >>> 1;
+                invokeAll(new ReadTask(files, selected, begin, mid),
+                          new ReadTask(files, selected, mid, end));
+            }
+        }
+    }
+}
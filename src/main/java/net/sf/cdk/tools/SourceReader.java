@@ -0,0 +1,136 @@
+/* Copyright (C) 2026  The CDK Development Team <cdk-devel@lists.sourceforge.net>
+ *
+ * Contact: cdk-devel@lists.sourceforge.net
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 2.1
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package net.sf.cdk.tools;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads the lines of a file into a direct buffer that is reused for every
+ * file, and passes them to {@link SourceAnalyzer}s until none of them wants
+ * more lines. A line ends with '\n', '\r' or "\r\n". Lines longer than the
+ * buffer are passed in buffer sized pieces.
+ *
+ * <p>Instances are not thread safe; each worker thread should use its own
+ * reader.
+ */
+class SourceReader {
+
+    private final ByteBuffer buffer;
+    private boolean[]        active = new boolean[0];
+    private long             bytesRead;
+    private long             linesRead;
+
+    SourceReader() {
+        this(16 * 1024);
+    }
+
+    /**
+     * @param capacity size of the read buffer, which bounds the line length
+     */
+    SourceReader(int capacity) {
+        buffer = ByteBuffer.allocateDirect(capacity);
+    }
+
+    /**
+     * Reads the file and passes its lines to the analyzers.
+     *
+     * @param index     position of the file, passed on to the analyzers
+     * @param file      the file to read
+     * @param analyzers the analyzers
+     */
+    void read(int index, File file, SourceAnalyzer[] analyzers) {
+        if (active.length < analyzers.length) active = new boolean[analyzers.length];
+        int activeCount = analyzers.length;
+        for (int a=0; a<analyzers.length; a++) {
+            analyzers[a].start(index, file);
+            active[a] = true;
+        }
+        bytesRead = 0;
+        linesRead = 0;
+        buffer.clear();
+        IOException error = null;
+        try {
+            FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+            try {
+                boolean eof = false;
+                // the last line ended with '\r', which may be half of "\r\n"
+                boolean afterCR = false;
+                reading:
+                while (!eof) {
+                    int n = channel.read(buffer);
+                    if (n < 0) eof = true;
+                    else bytesRead += n;
+                    buffer.flip();
+                    int begin = 0;
+                    int limit = buffer.limit();
+                    for (int i=0; i<=limit; i++) {
+                        boolean endOfLine;
+                        if (i == limit) {
+                            // only a full buffer or the end of the file end a line here
+                            endOfLine = i > begin && (eof || begin == 0 && limit == buffer.capacity());
+                        } else {
+                            byte b = buffer.get(i);
+                            if (b == '\n' && afterCR) {
+                                afterCR = false;
+                                begin = i + 1;
+                                continue;
+                            }
+                            endOfLine = b == '\n' || b == '\r';
+                            afterCR = b == '\r';
+                        }
+                        if (!endOfLine) continue;
+                        linesRead++;
+                        for (int a=0; a<analyzers.length; a++) {
+                            if (active[a] && !analyzers[a].analyzeLine(buffer, begin, i)) {
+                                active[a] = false;
+                                activeCount--;
+                            }
+                        }
+                        if (activeCount == 0) break reading;
+                        begin = i + 1;
+                    }
+                    // keep the partial last line for the next read
+                    buffer.position(Math.min(begin, limit));
+                    buffer.compact();
+                }
+            } finally {
+                channel.close();
+            }
+        } catch (IOException e) {
+            error = e;
+        }
+        for (int a=0; a<analyzers.length; a++) {
+            analyzers[a].end(error);
+        }
+    }
+
+    /** @return number of bytes read from the file by the last read */
+    long getBytesRead() {
+        return bytesRead;
+    }
+
+    /** @return number of lines passed to the analyzers by the last read */
+    long getLinesRead() {
+        return linesRead;
+    }
+}
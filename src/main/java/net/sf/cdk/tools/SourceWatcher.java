@@ -0,0 +1,152 @@
+/* Copyright (C) 2026  The CDK Development Team <cdk-devel@lists.sourceforge.net>
+ *
+ * Contact: cdk-devel@lists.sourceforge.net
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 2.1
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package net.sf.cdk.tools;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches a source tree and keeps the module listings written by a
+ * {@link MakeJavafilesFiles} up to date. Events are collected until the tree
+ * has been quiet for {@link #QUIET_PERIOD} milliseconds, so that a checkout
+ * changing thousands of files gives a single update of the listings.
+ */
+class SourceWatcher {
+
+    /** Time without events after which a batch of changes is processed. */
+    static final long QUIET_PERIOD = 300;
+
+    /** Longest time changes are collected while events keep coming in. */
+    static final long MAX_BATCH_DELAY = 10000;
+
+    private final MakeJavafilesFiles processor;
+    private final File root;
+    private final WatchService watcher;
+    private final Map<WatchKey,Path> keys = new HashMap<WatchKey,Path>();
+
+    /**
+     * @param processor the processor that already processed the tree
+     * @param root      the source directory the processor was created for
+     * @throws IOException if the tree could not be registered for watching
+     */
+    SourceWatcher(MakeJavafilesFiles processor, File root) throws IOException {
+        this.processor = processor;
+        this.root = root;
+        this.watcher = root.toPath().getFileSystem().newWatchService();
+        register(root.toPath(), null);
+    }
+
+    /**
+     * Processes changes until the source directory is deleted or the thread
+     * is interrupted.
+     *
+     * @throws IOException          if a new directory could not be registered
+     * @throws InterruptedException if interrupted while waiting for changes
+     */
+    void run() throws IOException, InterruptedException {
+        try {
+            while (!keys.isEmpty()) {
+                WatchKey key = watcher.take();
+                Set<File> changed = new LinkedHashSet<File>();
+                boolean overflow = false;
+                long start = System.currentTimeMillis();
+                while (key != null) {
+                    overflow |= drain(key, changed);
+                    if (System.currentTimeMillis() - start > MAX_BATCH_DELAY) break;
+                    key = watcher.poll(QUIET_PERIOD, TimeUnit.MILLISECONDS);
+                }
+                if (overflow) {
+                    // events were lost, fall back to a (cached) scan of the whole tree
+                    register(root.toPath(), null);
+                    processor.reprocessJavaSourceFiles(root);
+                    System.out.println("Rescanned " + root);
+                } else if (!changed.isEmpty()) {
+                    processor.updateJavaSourceFiles(changed);
+                    System.out.println("Processed " + changed.size() + " changed files");
+                }
+            }
+        } finally {
+            watcher.close();
+        }
+    }
+
+    /**
+     * Adds the paths of the pending events of a key to the changed files.
+     *
+     * @return true if events were lost
+     */
+    private boolean drain(WatchKey key, Set<File> changed) throws IOException {
+        boolean overflow = false;
+        Path dir = keys.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW) {
+                overflow = true;
+                continue;
+            }
+            Path child = dir.resolve((Path) event.context());
+            changed.add(child.toFile());
+            if (event.kind() == ENTRY_CREATE && Files.isDirectory(child)) {
+                // files may have been added before the directory was registered
+                register(child, changed);
+            }
+        }
+        if (!key.reset()) {
+            keys.remove(key);
+        }
+        return overflow;
+    }
+
+    /**
+     * Registers the directory and all directories below it, adding the files
+     * found to the given set if not null.
+     */
+    private void register(Path start, final Set<File> found) throws IOException {
+        Files.walkFileTree(start, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                keys.put(dir.register(watcher, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY), dir);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (found != null) found.add(file.toFile());
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
@@ -28,7 +28,11 @@ import org.openscience.cdk.exception.CDKException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Used to store and return data of a particular chemicalElement. As this class is a
@@ -37,6 +41,14 @@ import java.util.List;
  *   ElementPTFactory efac = ElementPTFactory.getInstance();
  * </pre>
  *
+ * <p>The elements are kept as immutable {@link ElementData} records, indexed
+ * by symbol, atomic number and name. Looking up an element and the getters
+ * of single properties take constant time and allocate nothing.
+ *
+ * <p>The instance is created on the first call of {@link #getInstance()},
+ * once, and its state is never changed after construction. It can therefore
+ * be shared by any number of threads, which read it without locking.
+ *
  * @author     	   Miguel Rojas
  * @cdk.created    May 8, 2005
  * @cdk.module     core
@@ -45,9 +57,15 @@ import java.util.List;
 class ElementPTFactory
 {
 
-    private static ElementPTFactory efac     = null;
-    private        List<PeriodicTableElement>                               elements = null;
-    private        boolean                                                  debug    = false;
+    private final  List<ElementData>                                        elements;
+
+    /** Elements by {@link #symbolKey(String)}. */
+    private final  ElementData[]                                            bySymbol = new ElementData[27 * 27 * 27];
+    /** Elements with a symbol that has no key of its own. */
+    private final  Map<String,ElementData>                                  otherSymbols = new HashMap<String,ElementData>();
+    /** Elements by atomic number, null where there is none. */
+    private final  ElementData[]                                            byNumber;
+    private final  Map<String,ElementData>                                  byName = new HashMap<String,ElementData>();
 
     /**
      * Private constructor for the ElementPTFactory object.
@@ -67,22 +85,99 @@ class ElementPTFactory
         if (ins == null) {
             throw new IOException(errorMessage);
         }
-        ElementPTReader reader = new ElementPTReader(new InputStreamReader(ins));
-        elements = reader.readElements();
+        List<PeriodicTableElement> read;
+        try {
+            ElementPTReader reader = new ElementPTReader(new InputStreamReader(ins));
+            read = reader.readElements();
+        } finally {
+            ins.close();
+        }
 
+        List<ElementData> data = new ArrayList<ElementData>(read.size());
+        int maxNumber = 0;
+        for (PeriodicTableElement element : read) {
+            ElementData elementData = new ElementData(element);
+            data.add(elementData);
+            Integer number = elementData.getAtomicNumber();
+            if (number != null && number > maxNumber) maxNumber = number;
+        }
+        elements = Collections.unmodifiableList(data);
+        byNumber = new ElementData[maxNumber + 1];
+        // the first element with a key wins, like the linear search did
+        for (ElementData element : elements) {
+            String symbol = element.getSymbol();
+            int key = symbolKey(symbol);
+            if (key != -1 && bySymbol[key] == null) {
+                bySymbol[key] = element;
+            } else if (key == -1 || !bySymbol[key].getSymbol().equals(symbol)) {
+                if (!otherSymbols.containsKey(symbol)) otherSymbols.put(symbol, element);
+            }
+            Integer number = element.getAtomicNumber();
+            if (number != null && number >= 0 && byNumber[number] == null) byNumber[number] = element;
+            if (element.getName() != null && !byName.containsKey(element.getName())) byName.put(element.getName(), element);
+        }
     }
 
     /**
-     *  Returns an ElementPTFactory instance.
+     * Perfect hash of element symbols: the letters of symbols of one to
+     * three ASCII letters, ignoring case, as digits of a number in base 27.
+     *
+     * @return the key, or -1 for other symbols
+     */
+    private static int symbolKey(String symbol) {
+        if (symbol == null || symbol.length() == 0 || symbol.length() > 3) return -1;
+        int key = 0;
+        for (int i=0; i<symbol.length(); i++) {
+            char c = symbol.charAt(i);
+            int letter;
+            if (c >= 'a' && c <= 'z') letter = c - 'a' + 1;
+            else if (c >= 'A' && c <= 'Z') letter = c - 'A' + 1;
+            else return -1;
+            key = key * 27 + letter;
+        }
+        return key;
+    }
+
+    /**
+     * Holds the instance. The JVM initializes this class on the first call
+     * of {@link ElementPTFactory#getInstance()}, exactly once, and makes the
+     * result visible to all threads.
+     */
+    private static class Holder {
+
+        static final ElementPTFactory INSTANCE;
+        static final IOException      FAILURE;
+
+        static {
+            ElementPTFactory instance = null;
+            IOException failure = null;
+            try {
+                instance = new ElementPTFactory();
+            } catch (IOException exception) {
+                failure = exception;
+            } catch (RuntimeException exception) {
+                // keep the holder usable, later calls report the failure too
+                failure = new IOException("Could not read chemicalElements.xml: " + exception, exception);
+            }
+            INSTANCE = instance;
+            FAILURE = failure;
+        }
+    }
+
+    /**
+     *  Returns the ElementPTFactory instance. The chemicalElements.xml file
+     *  is read once, on the first call, even if several threads call this
+     *  at the same time.
      *
      *@return The instance value
-     *@exception java.io.IOException             Description of the Exception
+     *@exception java.io.IOException  if chemicalElements.xml could not be read,
+     *           on the first and on all later calls
      */
     public static ElementPTFactory getInstance() throws IOException {
-        if (efac == null) {
-            efac = new ElementPTFactory();
+        if (Holder.INSTANCE == null) {
+            throw new IOException(Holder.FAILURE.getMessage(), Holder.FAILURE);
         }
-        return efac;
+        return Holder.INSTANCE;
     }
 
 
@@ -96,33 +191,72 @@ class ElementPTFactory
     }
 
     /**
-     * Get all the elements loaded by the factory.
+     * Get all the elements loaded by the factory, as new objects which the
+     * caller may change.
      *
-     * @return  A Vector of PeriodicTableElement objects
+     * @return  A List of PeriodicTableElement objects
      * @see PeriodicTableElement
      */
     public List<PeriodicTableElement> getElements() {
-        return elements;
+        List<PeriodicTableElement> copies = new ArrayList<PeriodicTableElement>(elements.size());
+        for (ElementData element : elements) {
+            copies.add(element.toPeriodicTableElement());
+        }
+        return copies;
     }
 
     /**
 	 * Returns an Element with a given element symbol.
 	 *
 	 *@param  symbol  An element symbol to search for
-	 *@return         An array of element that matches the given element symbol
+	 *@return         A new element that matches the given element symbol, or null
 	 */
 	public PeriodicTableElement getElement(String symbol) {
-        for (PeriodicTableElement element : elements) {
-            if (element.getSymbol().equals(symbol)) {
-                try {
-                    return (PeriodicTableElement) element.clone();
-                } catch (CloneNotSupportedException e) {
-                    e.printStackTrace();
-                }
-            }
-        }
-        return null;
+        ElementData element = lookup(symbol);
+        return element == null ? null : element.toPeriodicTableElement();
 	}
+
+    /**
+     * Looks up an element by symbol.
+     *
+     * @param  symbol  the element symbol, like "Co"
+     * @return         the shared element record, or null if unknown
+     */
+    public ElementData lookup(String symbol) {
+        int key = symbolKey(symbol);
+        if (key != -1) {
+            ElementData element = bySymbol[key];
+            if (element != null && element.getSymbol().equals(symbol)) return element;
+        }
+        return otherSymbols.isEmpty() ? null : otherSymbols.get(symbol);
+    }
+
+    /**
+     * Looks up an element by atomic number.
+     *
+     * @param  atomicNumber  the atomic number
+     * @return               the shared element record, or null if unknown
+     */
+    public ElementData lookup(int atomicNumber) {
+        return atomicNumber >= 0 && atomicNumber < byNumber.length ? byNumber[atomicNumber] : null;
+    }
+
+    /**
+     * @return the highest atomic number of the elements
+     */
+    public int getMaxAtomicNumber() {
+        return byNumber.length - 1;
+    }
+
+    /**
+     * Looks up an element by name.
+     *
+     * @param  name  the element name, like "Cobalt"
+     * @return       the shared element record, or null if unknown
+     */
+    public ElementData lookupByName(String name) {
+        return byName.get(name);
+    }
     
 	/**
 	 *  Configures a PeriodicTableElement. Finds the correct element type
@@ -134,7 +268,7 @@ class ElementPTFactory
      * (such as invalid IUPAC group number)
 	 */
 	public PeriodicTableElement configure(PeriodicTableElement element) throws CDKException {
-		PeriodicTableElement elementInt = getElement(element.getSymbol());
+		ElementData elementInt = lookup(element.getSymbol());
 		
 		element.setSymbol(elementInt.getSymbol());
 		element.setAtomicNumber(elementInt.getAtomicNumber());
@@ -156,7 +290,7 @@ class ElementPTFactory
 	 * @return                             The atomic number value
 	 */
 	public double getAtomicNumber(PeriodicTableElement element){
-    	PeriodicTableElement elementInt = getElement(element.getSymbol());
+    	ElementData elementInt = lookup(element.getSymbol());
 		return elementInt.getAtomicNumber();
 	}
 
@@ -167,7 +301,7 @@ class ElementPTFactory
 	 * @return                             The name value of this element
 	 */
 	public String getName(PeriodicTableElement element){
-    	PeriodicTableElement elementInt = getElement(element.getSymbol());
+    	ElementData elementInt = lookup(element.getSymbol());
 		return elementInt.getName();
 	}
 
@@ -178,7 +312,7 @@ class ElementPTFactory
 	 * @return                             The chemical serie value of this element
 	 */
 	public String getChemicalSerie(PeriodicTableElement element){
-    	PeriodicTableElement elementInt = getElement(element.getSymbol());
+    	ElementData elementInt = lookup(element.getSymbol());
 		return elementInt.getChemicalSerie();
 	}
     
@@ -189,7 +323,7 @@ class ElementPTFactory
 	 * @return                             The period value of this element
 	 */
 	public int getPeriod(PeriodicTableElement element){
-    	PeriodicTableElement elementInt = getElement(element.getSymbol());
+    	ElementData elementInt = lookup(element.getSymbol());
 		return elementInt.getPeriod();
 	}
     
@@ -200,7 +334,7 @@ class ElementPTFactory
 	 * @return                             The group value of this element
 	 */
 	public int getGroup(PeriodicTableElement element){
-    	PeriodicTableElement elementInt = getElement(element.getSymbol());
+    	ElementData elementInt = lookup(element.getSymbol());
 		return elementInt.getGroup();
 	}
 
@@ -211,7 +345,7 @@ class ElementPTFactory
 	 * @return                             The phase value of this element
 	 */
 	public String getPhase(PeriodicTableElement element){
-    	PeriodicTableElement elementInt = getElement(element.getSymbol());
+    	ElementData elementInt = lookup(element.getSymbol());
 		return elementInt.getPhase();
 	}
 
@@ -222,7 +356,7 @@ class ElementPTFactory
 	 * @return                             The CASE id value of this element
 	 */
 	public String getCASid(PeriodicTableElement element){
-    	PeriodicTableElement elementInt = getElement(element.getSymbol());
+    	ElementData elementInt = lookup(element.getSymbol());
 		return elementInt.getCASid();
 	}
 
@@ -233,7 +367,7 @@ class ElementPTFactory
 	 * @return                             The Vdw radio value of this element
 	 */
 	public double getVdwRadius(PeriodicTableElement element){
-    	PeriodicTableElement elementInt = getElement(element.getSymbol());
+    	ElementData elementInt = lookup(element.getSymbol());
 		return elementInt.getVdwRadius();
 	}
 
@@ -244,7 +378,7 @@ class ElementPTFactory
 	 * @return                             The covalent radio value of this element
 	 */
 	public double getCovalentRadius(PeriodicTableElement element){
-    	PeriodicTableElement elementInt = getElement(element.getSymbol());
+    	ElementData elementInt = lookup(element.getSymbol());
 		return elementInt.getCovalentRadius();
 	}
     /**
@@ -254,8 +388,107 @@ class ElementPTFactory
 	 * @return                             The Pauling Electronegativity value of this element
 	 */
 	public double getPaulingEneg(PeriodicTableElement element){
-    	PeriodicTableElement elementInt = getElement(element.getSymbol());
+    	ElementData elementInt = lookup(element.getSymbol());
 		return elementInt.getPaulingEneg();
 	}
-}
 
+    /**
+     * Immutable data of an element, as read from chemicalElements.xml.
+     * Records are shared; use {@link #toPeriodicTableElement()} for an
+     * element that can be changed.
+     */
+    static final class ElementData {
+
+        private final String  symbol;
+        private final Integer atomicNumber;
+        private final String  name;
+        private final String  chemicalSerie;
+        private final Integer period;
+        private final Integer group;
+        private final String  phase;
+        private final String  casId;
+        private final Double  vdwRadius;
+        private final Double  covalentRadius;
+        private final Double  paulingEneg;
+
+        ElementData(PeriodicTableElement element) {
+            symbol = element.getSymbol();
+            atomicNumber = element.getAtomicNumber();
+            name = element.getName();
+            chemicalSerie = element.getChemicalSerie();
+            period = element.getPeriod();
+            group = element.getGroup();
+            phase = element.getPhase();
+            casId = element.getCASid();
+            vdwRadius = element.getVdwRadius();
+            covalentRadius = element.getCovalentRadius();
+            paulingEneg = element.getPaulingEneg();
+        }
+
+        public String getSymbol() {
+            return symbol;
+        }
+
+        public Integer getAtomicNumber() {
+            return atomicNumber;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getChemicalSerie() {
+            return chemicalSerie;
+        }
+
+        public Integer getPeriod() {
+            return period;
+        }
+
+        /** @return the IUPAC group, or null if unset */
+        public Integer getGroup() {
+            return group;
+        }
+
+        public String getPhase() {
+            return phase;
+        }
+
+        public String getCASid() {
+            return casId;
+        }
+
+        /** @return the VdW radius, or null if unset */
+        public Double getVdwRadius() {
+            return vdwRadius;
+        }
+
+        /** @return the covalent radius, or null if unset */
+        public Double getCovalentRadius() {
+            return covalentRadius;
+        }
+
+        /** @return the Pauling electronegativity, or null if unset */
+        public Double getPaulingEneg() {
+            return paulingEneg;
+        }
+
+        /**
+         * @return a new PeriodicTableElement with the data of this record
+         */
+        PeriodicTableElement toPeriodicTableElement() {
+            PeriodicTableElement element = new PeriodicTableElement(symbol, atomicNumber);
+            element.setName(name);
+            element.setChemicalSerie(chemicalSerie);
+            element.setPeriod(period);
+            // set directly, setGroup() does not accept an unset group
+            element.group = group;
+            element.setPhase(phase);
+            element.setCASid(casId);
+            element.setVdwRadius(vdwRadius);
+            element.setCovalentRadius(covalentRadius);
+            element.setPaulingEneg(paulingEneg);
+            return element;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+/* Copyright (C) 2026  The CDK Development Team <cdk-devel@lists.sourceforge.net>
+ *
+ * Contact: cdk-devel@lists.sourceforge.net
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 2.1
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package net.sf.cdk.tools.bodr;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * The numeric properties of the {@link ElementPTFactory} elements, as one
+ * primitive array per property, indexed by atomic number. Unset values are
+ * NaN for the radii and electronegativity, and {@link #UNSET} for period
+ * and group; atomic numbers without an element read as unset too. Reading
+ * a value allocates nothing, which suits bulk work like summing the van der
+ * Waals volumes of many atoms:
+ * <pre>
+ *   PeriodicTableColumns columns = PeriodicTableColumns.getInstance();
+ *   double r = columns.getVdwRadius(6);
+ * </pre>
+ *
+ * <p>Like the factory, the instance is created once and never changed, so
+ * it can be shared by any number of threads.
+ */
+class PeriodicTableColumns {
+
+    /** Period or group of an element that has none. */
+    public static final int UNSET = -1;
+
+    private final double[] vdw;
+    private final double[] covalent;
+    private final double[] paulingEneg;
+    private final int[]    period;
+    private final int[]    group;
+
+    /**
+     * @param factory the elements to take the values from
+     */
+    PeriodicTableColumns(ElementPTFactory factory) {
+        int size = factory.getMaxAtomicNumber() + 1;
+        vdw = new double[size];
+        covalent = new double[size];
+        paulingEneg = new double[size];
+        period = new int[size];
+        group = new int[size];
+        for (int number=0; number<size; number++) {
+            ElementPTFactory.ElementData element = factory.lookup(number);
+            if (element == null) {
+                vdw[number] = covalent[number] = paulingEneg[number] = Double.NaN;
+                period[number] = group[number] = UNSET;
+                continue;
+            }
+            vdw[number] = toDouble(element.getVdwRadius());
+            covalent[number] = toDouble(element.getCovalentRadius());
+            paulingEneg[number] = toDouble(element.getPaulingEneg());
+            period[number] = toInt(element.getPeriod());
+            group[number] = toInt(element.getGroup());
+        }
+    }
+
+    private static double toDouble(Double value) {
+        return value == null ? Double.NaN : value;
+    }
+
+    private static int toInt(Integer value) {
+        return value == null ? UNSET : value;
+    }
+
+    /** Holds the instance, created on the first call of {@link PeriodicTableColumns#getInstance()}. */
+    private static class Holder {
+
+        static final PeriodicTableColumns INSTANCE;
+        static final IOException          FAILURE;
+
+        static {
+            PeriodicTableColumns instance = null;
+            IOException failure = null;
+            try {
+                instance = new PeriodicTableColumns(ElementPTFactory.getInstance());
+            } catch (IOException exception) {
+                failure = exception;
+            }
+            INSTANCE = instance;
+            FAILURE = failure;
+        }
+    }
+
+    /**
+     * Returns the columns of the {@link ElementPTFactory} instance, built on
+     * the first call.
+     *
+     * @return the instance
+     * @throws IOException if the element data could not be read
+     */
+    public static PeriodicTableColumns getInstance() throws IOException {
+        if (Holder.INSTANCE == null) {
+            throw new IOException(Holder.FAILURE.getMessage(), Holder.FAILURE);
+        }
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * @return the highest atomic number with values
+     */
+    public int getMaxAtomicNumber() {
+        return vdw.length - 1;
+    }
+
+    /**
+     * @param atomicNumber the atomic number
+     * @return the van der Waals radius, or NaN if unset
+     */
+    public double getVdwRadius(int atomicNumber) {
+        return atomicNumber >= 0 && atomicNumber < vdw.length ? vdw[atomicNumber] : Double.NaN;
+    }
+
+    /**
+     * @param atomicNumber the atomic number
+     * @return the covalent radius, or NaN if unset
+     */
+    public double getCovalentRadius(int atomicNumber) {
+        return atomicNumber >= 0 && atomicNumber < covalent.length ? covalent[atomicNumber] : Double.NaN;
+    }
+
+    /**
+     * @param atomicNumber the atomic number
+     * @return the Pauling electronegativity, or NaN if unset
+     */
+    public double getPaulingEneg(int atomicNumber) {
+        return atomicNumber >= 0 && atomicNumber < paulingEneg.length ? paulingEneg[atomicNumber] : Double.NaN;
+    }
+
+    /**
+     * @param atomicNumber the atomic number
+     * @return the period, or {@link #UNSET}
+     */
+    public int getPeriod(int atomicNumber) {
+        return atomicNumber >= 0 && atomicNumber < period.length ? period[atomicNumber] : UNSET;
+    }
+
+    /**
+     * @param atomicNumber the atomic number
+     * @return the IUPAC group, or {@link #UNSET}
+     */
+    public int getGroup(int atomicNumber) {
+        return atomicNumber >= 0 && atomicNumber < group.length ? group[atomicNumber] : UNSET;
+    }
+
+    /**
+     * @return a copy of the van der Waals radii by atomic number, for loops
+     *         that read the array directly
+     */
+    public double[] getVdwRadii() {
+        return Arrays.copyOf(vdw, vdw.length);
+    }
+
+    /**
+     * @return a copy of the covalent radii by atomic number
+     */
+    public double[] getCovalentRadii() {
+        return Arrays.copyOf(covalent, covalent.length);
+    }
+
+    /**
+     * @return a copy of the Pauling electronegativities by atomic number
+     */
+    public double[] getPaulingEnegs() {
+        return Arrays.copyOf(paulingEneg, paulingEneg.length);
+    }
+
+    /**
+     * @return a copy of the periods by atomic number
+     */
+    public int[] getPeriods() {
+        return Arrays.copyOf(period, period.length);
+    }
+
+    /**
+     * @return a copy of the groups by atomic number
+     */
+    public int[] getGroups() {
+        return Arrays.copyOf(group, group.length);
+    }
+}
@@ -24,145 +24,393 @@
  */
 package net.sf.cdk.tools.copyright;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+import net.sf.cdk.tools.ByteLines;
+import net.sf.cdk.tools.SourceAnalyzer;
+import net.sf.cdk.tools.SourcePipeline;
 
 /**
  * @author egonw
  */
 public class CheckCopyrightStatements {
 
-    private enum CopyrightField {
-        YEAR_INFO,
-        AUTHOR_NAME,
-        AUTHOR_EMAIL
-    }
+    private static final byte[] DO_NOT_EDIT = ByteLines.ascii("do not edit");
+    private static final byte[] PACKAGE     = ByteLines.ascii("package");
+    private static final byte[] COPYRIGHT   = ByteLines.ascii("Copyright");
+
+    /** Findings of the files analyzed. */
+    private final CopyrightReport report = new CopyrightReport();
+
+    /** Roots of the audited files, to find the class names. */
+    private final List<String> roots = new ArrayList<String>();
+
+    /** Holders of the audited files, if an index is wanted. */
+    private CopyrightIndex holderIndex = null;
+
+    private int threads = 1;
 
     public void processJavaSourceFiles(File path) {
-        if (path.isDirectory()) {
-            for (File file : path.listFiles()) {
-                processJavaSourceFiles(file);
+        audit(Collections.singletonList(path));
+        reportResults();
+    }
+
+    /**
+     * Sets the number of threads reading the files in an audit.
+     *
+     * @param threads number of threads, at least one
+     */
+    public void setThreads(int threads) {
+        if (threads < 1)
+            throw new IllegalArgumentException("Need at least one thread: " + threads);
+        this.threads = threads;
+    }
+
+    /**
+     * Checks the Java source files below the given roots. The findings are
+     * added to the report.
+     *
+     * @param roots the source directories
+     */
+    public void audit(List<File> roots) {
+        List<File> files = new ArrayList<File>();
+        for (File root : roots) {
+            this.roots.add(root.getPath() + File.separator);
+            files.addAll(SourcePipeline.listJavaSourceFiles(root));
+        }
+        checkFiles(files);
+    }
+
+    /**
+     * Checks only the Java source files below the given roots that changed
+     * relative to a git ref, as listed by <code>git diff</code>. This
+     * includes staged and unstaged changes, but not files git does not
+     * track. The findings are added to the report, like a full audit of
+     * just these files.
+     *
+     * @param roots the source directories, inside a git working tree
+     * @param ref   the commit to compare with, like HEAD or origin/master
+     * @throws IOException if git could not be run or failed
+     */
+    public void auditChanges(List<File> roots, String ref) throws IOException {
+        List<File> files = new ArrayList<File>();
+        for (File root : roots) {
+            this.roots.add(root.getPath() + File.separator);
+            // root after root, like the full audit
+            List<File> changed = new ArrayList<File>();
+            for (String path : listChangedFiles(root, ref)) {
+                File file = new File(root, path);
+                if (SourcePipeline.isJavaSourceFile(file.getPath()) && file.isFile()) changed.add(file);
             }
-        } else if (path.isFile() && path.getPath().endsWith(".java") &&
-                !path.getPath().contains("net" + File.separator + "sf")) {
-            Map<String,List<Map<CopyrightField,String>>> copyrights = getCopyrightInfo(path);
-            if (copyrights != null) checkCopyrightStatements(copyrights);
+            SourcePipeline.sortInListingOrder(changed);
+            files.addAll(changed);
         }
+        checkFiles(files);
     }
 
-    private void checkCopyrightStatements(Map<String,List<Map<CopyrightField, String>>> copyrights ) {
-        String fileName = copyrights.keySet().iterator().next();
-        List<Map<CopyrightField, String>> copyrightList = copyrights.get(fileName);
+    /**
+     * Runs <code>git diff --name-only</code> in the given directory.
+     *
+     * @return the changed files, relative to the directory
+     */
+    private static List<String> listChangedFiles(File dir, String ref) throws IOException {
+        ProcessBuilder builder = new ProcessBuilder(
+            "git", "diff", "--name-only", "--relative", "--diff-filter=d", "-z", ref, "--", ".");
+        builder.directory(dir);
+        builder.redirectError(ProcessBuilder.Redirect.INHERIT);
+        Process git = builder.start();
+        byte[] output;
+        try {
+            git.getOutputStream().close();
+            output = git.getInputStream().readAllBytes();
+            if (git.waitFor() != 0)
+                throw new IOException("git diff " + ref + " failed in " + dir);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while running git diff", e);
+        } finally {
+            git.destroy();
+        }
+        List<String> paths = new ArrayList<String>();
+        // -z separates the paths by NUL and leaves them unquoted
+        for (String path : new String(output, StandardCharsets.UTF_8).split("\0")) {
+            if (path.length() > 0) paths.add(path);
+        }
+        return paths;
+    }
+
+    /**
+     * Checks the given Java source files. The findings are added to the
+     * report.
+     *
+     * @param files the files
+     */
+    public void checkFiles(List<File> files) {
+        SourcePipeline pipeline = new SourcePipeline();
+        pipeline.setThreads(threads);
+        pipeline.addAnalyzer(getAnalyzerFactory());
+        pipeline.run(files);
+    }
+
+    /**
+     * Returns a factory of analyzers that collect the copyright information
+     * of the files read by a {@link SourcePipeline}, so that this check can
+     * share the file reads of other tools. Call {@link #reportResults()}
+     * when the pipeline is done.
+     *
+     * @return the analyzer factory
+     */
+    public Supplier<SourceAnalyzer> getAnalyzerFactory() {
+        return new Supplier<SourceAnalyzer>() {
+            @Override
+            public SourceAnalyzer get() {
+                return new CopyrightAnalyzer(report, holderIndex);
+            }
+        };
+    }
+
+    /**
+     * Sets the index to add the copyright holders of the analyzed files to,
+     * in the same pass as the check.
+     *
+     * @param holderIndex the index, or null to not index the holders
+     */
+    public void setHolderIndex(CopyrightIndex holderIndex) {
+        this.holderIndex = holderIndex;
+    }
+
+    /**
+     * @return the index of the copyright holders, or null if not set
+     */
+    public CopyrightIndex getHolderIndex() {
+        return holderIndex;
+    }
+
+    /**
+     * @return the findings of the files analyzed so far
+     */
+    public CopyrightReport getReport() {
+        return report;
+    }
+
+    /**
+     * Prints the findings of the files analyzed since the last report, in
+     * the order of the files.
+     */
+    public void reportResults() {
+        report.printText(System.out);
+        report.clear();
+    }
+
+    private List<CopyrightFinding> checkCopyrightStatements(String path, String fileName,
+                                                            List<CopyrightStatement> copyrightList) {
+        List<CopyrightFinding> findings = new ArrayList<CopyrightFinding>(0);
         if (copyrightList.size() == 0) {
-            System.out.println(fileName + ": missing copyright line.");
+            findings.add(new CopyrightFinding(path, fileName, CopyrightProblem.MISSING_LINE));
         }
-        for (Map<CopyrightField,String> holder : copyrightList) {
+        for (CopyrightStatement holder : copyrightList) {
             // check year
-            if (holder.get(CopyrightField.YEAR_INFO) == null) {
-                System.out.println(fileName + ": missing copyright year.");
+            if (holder.getYears() == null) {
+                findings.add(new CopyrightFinding(path, fileName, CopyrightProblem.MISSING_YEAR));
             }
             // check copyright holder
-            if (holder.get(CopyrightField.AUTHOR_NAME) == null) {
-                System.out.println(fileName + ": missing copyright holder name.");
+            if (holder.getHolder() == null) {
+                findings.add(new CopyrightFinding(path, fileName, CopyrightProblem.MISSING_HOLDER));
             } else {
-                String holderName = holder.get(CopyrightField.AUTHOR_NAME);
+                String holderName = holder.getHolder();
                 // check holder != CDK
                 if (holderName.contains("Chemistry") &&
                     holderName.contains("Development") &&
                     holderName.contains("Kit")) {
-                    System.out.println(fileName + ": copyright is not a legal entity");
-                } else if (holder.get(CopyrightField.AUTHOR_EMAIL) == null) {
-                    System.out.println(fileName + ": copyright holder is not identified by an email address");
+                    findings.add(new CopyrightFinding(path, fileName, CopyrightProblem.NOT_LEGAL_ENTITY));
+                } else if (holder.getEmail() == null) {
+                    findings.add(new CopyrightFinding(path, fileName, CopyrightProblem.MISSING_EMAIL));
                 }
             }
         }
+        return findings;
     }
 
-    public Map<String,List<Map<CopyrightField,String>>> getCopyrightInfo(File file) {
-	boolean autoGenerated = false;
-        Map<String,List<Map<CopyrightField,String>>> results = new HashMap<String, List<Map<CopyrightField,String>>>();
-        List<Map<CopyrightField,String>> copyrights = new ArrayList<Map<CopyrightField,String>>();
-        try {
-            BufferedReader reader = new BufferedReader(
-                new FileReader(file)
-            );
-            String line = null;
-            boolean foundPackageClause = false;
-            while ((line = reader.readLine()) != null && !foundPackageClause) {
-		if (line.toLowerCase().contains("do not edit")) {
-		    return null;
-		};
-                foundPackageClause = line.contains("package");
-                if (line.contains("Copyright")) {
-                    Map<CopyrightField,String> copyrightProperties = new HashMap<CopyrightField, String>();
-                    Pattern copyrightPattern = Pattern.compile(".*Copyright\\s*\\(C\\)\\s*(.*)");
-                    Matcher generalMatch = copyrightPattern.matcher(line);
-                    if (generalMatch.matches()) {
-                        String interestingInfo = generalMatch.group(1).trim();
-                        String year = null;
-                        String author = null;
-                        String email = null;
-                        Pattern yearsPattern = Pattern.compile("(\\d{4}-\\d{4}).*");
-                        Pattern yearPattern = Pattern.compile("(\\d{4}).*");
-                        Matcher yearMatch = yearPattern.matcher(interestingInfo);
-                        Matcher yearsMatch = yearsPattern.matcher(interestingInfo);
-                        if (yearsMatch.matches() || yearMatch.matches()) {
-                            year = yearsMatch.matches() ? yearsMatch.group(1) : yearMatch.group(1);
-                            copyrightProperties.put(CopyrightField.YEAR_INFO, year);
-                            if (interestingInfo.length() > year.length()) {
-                                interestingInfo = interestingInfo.substring(year.length()+1).trim();
-                            } else {
-                                interestingInfo = "";
-                            }
-                        }
-                        if (year != null) {
-                            Pattern authorPattern = Pattern.compile("([^<]*).*");
-                            Matcher authorMatch = authorPattern.matcher(interestingInfo);
-                            if (authorMatch.matches()) {
-                                author = authorMatch.group(1).trim();
-                                copyrightProperties.put(CopyrightField.AUTHOR_NAME, author);
-                                if (interestingInfo.length() > author.length()) {
-                                    interestingInfo = interestingInfo.substring(author.length()+1).trim();
-                                } else {
-                                    interestingInfo = "";
-                                }
-                            }
-                        }
-                        if (author != null) {
-                            Pattern emailPattern = Pattern.compile("<([^>]*).*");
-                            Matcher emailMatch = emailPattern.matcher(interestingInfo);
-                            if (emailMatch.matches()) {
-                                email = emailMatch.group(1).trim();
-                                copyrightProperties.put(CopyrightField.AUTHOR_EMAIL, email);
-                            }
-                        }
-                    }
-                    copyrights.add(copyrightProperties);
-                }
+    /**
+     * Reads the copyright statements from the header of a file, up to the
+     * line with the package clause.
+     *
+     * @param file the Java source file
+     * @return the statements, or null if the file is generated code
+     */
+    public List<CopyrightStatement> getCopyrightInfo(File file) {
+        final CopyrightAnalyzer analyzer = new CopyrightAnalyzer(null, null);
+        SourcePipeline pipeline = new SourcePipeline();
+        pipeline.addAnalyzer(new Supplier<SourceAnalyzer>() {
+            @Override
+            public SourceAnalyzer get() {
+                return analyzer;
             }
-        } catch (Exception e) {
-            e.printStackTrace();
+        });
+        pipeline.run(Collections.singletonList(file));
+        return analyzer.autoGenerated ? null : analyzer.copyrights;
+    }
+
+    /**
+     * Collects the copyright lines up to the package clause, and checks them
+     * and the license text at the end of the file. Files marked "do not edit"
+     * are generated and are not checked.
+     */
+    private class CopyrightAnalyzer implements SourceAnalyzer {
+
+        private final CopyrightReport sink;
+        private final CopyrightIndex  holders;
+
+        private File file;
+        private int index;
+        private boolean autoGenerated;
+        private List<CopyrightStatement> copyrights;
+        private final LicenseMatcher license = new LicenseMatcher();
+
+        CopyrightAnalyzer(CopyrightReport sink, CopyrightIndex holders) {
+            this.sink = sink;
+            this.holders = holders;
         }
 
-	results.put(toAPIPath(file.getPath()), copyrights);
-        return results;
+        @Override
+        public void start(int index, File file) {
+            this.file = file;
+            this.index = index;
+            autoGenerated = false;
+            copyrights = new ArrayList<CopyrightStatement>(2);
+            license.reset();
+        }
+
+        @Override
+        public boolean analyzeLine(ByteBuffer buffer, int begin, int end) {
+            if (ByteLines.indexOfIgnoreCase(buffer, DO_NOT_EDIT, begin, end) != -1) {
+                autoGenerated = true;
+                return false;
+            }
+            boolean foundPackageClause = ByteLines.indexOf(buffer, PACKAGE, begin, end) != -1;
+            if (ByteLines.indexOf(buffer, COPYRIGHT, begin, end) != -1) {
+                copyrights.add(CopyrightLexer.lex(buffer, begin, end));
+            }
+            license.addLine(buffer, begin, end);
+            return !foundPackageClause;
+        }
+
+        @Override
+        public void end(IOException error) {
+            if (error != null) error.printStackTrace();
+            if (autoGenerated || sink == null) return;
+            String path = file.getPath();
+            String className = toAPIPath(path);
+            List<CopyrightFinding> findings = checkCopyrightStatements(path, className, copyrights);
+            if (!license.matched()) {
+                // the word by word comparison is only needed here
+                if (license.mentionsLGPL()) {
+                    findings.add(new CopyrightFinding(path, className, CopyrightProblem.MODIFIED_LICENSE,
+                                                      license.describeMismatch()));
+                } else {
+                    findings.add(new CopyrightFinding(path, className, CopyrightProblem.MISSING_LICENSE));
+                }
+            }
+            sink.add(index, findings);
+            if (holders != null) holders.add(className, copyrights);
+        }
     }
 
     public static void main(String[] args) {
         CheckCopyrightStatements processor = new CheckCopyrightStatements();
-        processor.processJavaSourceFiles(new File("src/main"));
+        CopyrightReport.Format format = CopyrightReport.Format.TEXT;
+        String output = null;
+        String since = null;
+        String holders = null;
+        int argc = 0;
+        while (argc < args.length && args[argc].startsWith("-")) {
+            if (args[argc].equals("-threads") && argc+1 < args.length) {
+                processor.setThreads(Integer.parseInt(args[argc+1]));
+                argc += 2;
+            } else if (args[argc].equals("-format") && argc+1 < args.length) {
+                format = CopyrightReport.Format.valueOf(args[argc+1].toUpperCase(Locale.ROOT));
+                argc += 2;
+            } else if (args[argc].equals("-output") && argc+1 < args.length) {
+                output = args[argc+1];
+                argc += 2;
+            } else if (args[argc].equals("-holders") && argc+1 < args.length) {
+                holders = args[argc+1];
+                processor.setHolderIndex(new CopyrightIndex());
+                argc += 2;
+            } else if (args[argc].equals("-since") && argc+1 < args.length) {
+                since = args[argc+1];
+                argc += 2;
+            } else {
+                syntax();
+            }
+        }
+        List<File> roots = new ArrayList<File>();
+        for (int i=argc; i<args.length; i++) roots.add(new File(args[i]));
+        if (roots.isEmpty()) roots.add(new File("src/main"));
+
+        CopyrightReport report = processor.getReport();
+        try {
+            if (since != null) {
+                processor.auditChanges(roots, since);
+            } else {
+                processor.audit(roots);
+            }
+            if (output != null) {
+                report.write(format, new File(output));
+            } else if (format == CopyrightReport.Format.JSON) {
+                System.out.print(report.toJson());
+            } else if (format == CopyrightReport.Format.SARIF) {
+                System.out.print(report.toSarif());
+            } else {
+                report.printText(System.out);
+            }
+            if (holders != null) processor.getHolderIndex().write(new File(holders));
+        } catch (IOException e) {
+            System.out.println("Could not check the copyright statements: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static void syntax() {
+        System.out.println("Syntax: CheckCopyrightStatements [-threads <n>] [-format text|json|sarif]\n" +
+                           "                                [-output <file>] [-holders <file>] [-since <gitRef>]\n" +
+                           "                                [<sourceDir>...]");
+        System.exit(-1);
+    }
+
+    private static final String SOURCE_PREFIX = "src" + File.separator + "main" + File.separator;
+
+    /** @return the longest audited root the path is in, or null */
+    private String findRoot(String path) {
+        String found = null;
+        for (String root : roots) {
+            if (path.startsWith(root) && (found == null || root.length() > found.length())) found = root;
+        }
+        return found;
     }
 
     private String toAPIPath(String className) {
-        className = className.replaceFirst("src" + File.separator + "main" + File.separator, "");
-        className = className.replaceFirst(".java", "");
+        String root = findRoot(className);
+        int prefix = -1;
+        if (root != null) {
+            className = className.substring(root.length());
+        } else {
+            prefix = className.indexOf(SOURCE_PREFIX);
+        }
+        if (prefix != -1) {
+            className = className.substring(0, prefix) + className.substring(prefix + SOURCE_PREFIX.length());
+        }
+        if (className.endsWith(".java")) {
+            className = className.substring(0, className.length() - ".java".length());
+        }
         StringBuffer sb = new StringBuffer();
         for (int i=0; i<className.length(); i++) {
             if (className.charAt(i) == File.separatorChar) {
@@ -0,0 +1,81 @@
+/* Copyright (C) 2026  The CDK Development Team <cdk-devel@lists.sourceforge.net>
+ *
+ * Contact: cdk-devel@lists.sourceforge.net
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 2.1
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package net.sf.cdk.tools.copyright;
+
+/**
+ * A problem found in the copyright statements of a source file.
+ */
+public class CopyrightFinding {
+
+    private final String           path;
+    private final String           className;
+    private final CopyrightProblem problem;
+    private final String           detail;
+
+    CopyrightFinding(String path, String className, CopyrightProblem problem) {
+        this(path, className, problem, null);
+    }
+
+    CopyrightFinding(String path, String className, CopyrightProblem problem, String detail) {
+        this.path = path;
+        this.className = className;
+        this.problem = problem;
+        this.detail = detail;
+    }
+
+    /**
+     * @return the path of the source file
+     */
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * @return the class name of the source file, like org.openscience.cdk.Atom
+     */
+    public String getClassName() {
+        return className;
+    }
+
+    /**
+     * @return the problem found
+     */
+    public CopyrightProblem getProblem() {
+        return problem;
+    }
+
+    /**
+     * @return more about the problem in this file, or null
+     */
+    public String getDetail() {
+        return detail;
+    }
+
+    /**
+     * @return the message of the problem, followed by the detail if any
+     */
+    public String getMessage() {
+        return detail == null ? problem.getMessage() : problem.getMessage() + ": " + detail;
+    }
+
+    @Override
+    public String toString() {
+        return className + ": " + getMessage();
+    }
+}
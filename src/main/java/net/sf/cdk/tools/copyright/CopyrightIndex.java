@@ -0,0 +1,242 @@
+/* Copyright (C) 2026  The CDK Development Team <cdk-devel@lists.sourceforge.net>
+ *
+ * Contact: cdk-devel@lists.sourceforge.net
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 2.1
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package net.sf.cdk.tools.copyright;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import net.sf.cdk.tools.Json;
+import net.sf.cdk.tools.OutputFiles;
+
+/**
+ * Index of the copyright holders of the checked files, filled during a
+ * copyright audit: the files and years of each holder, and the number of
+ * files with a copyright in each year. Holder names and emails are interned,
+ * so that each distinct name is kept once however many files it is in.
+ * Files are added concurrently by the threads reading them.
+ */
+public class CopyrightIndex {
+
+    private final ConcurrentHashMap<String,String> strings = new ConcurrentHashMap<String,String>();
+    private final ConcurrentHashMap<String,Holder> holders = new ConcurrentHashMap<String,Holder>();
+    private final ConcurrentHashMap<Integer,LongAdder> filesPerYear = new ConcurrentHashMap<Integer,LongAdder>();
+    private final LongAdder files = new LongAdder();
+
+    /**
+     * Adds the copyright statements of a file. Statements without holder or
+     * years are left out.
+     *
+     * @param className  the class of the file
+     * @param statements the statements of the file
+     */
+    void add(String className, List<CopyrightStatement> statements) {
+        files.increment();
+        className = intern(className);
+        SortedSet<Integer> years = new TreeSet<Integer>();
+        for (CopyrightStatement statement : statements) {
+            if (statement.getYears() == null || statement.getHolder() == null ||
+                statement.getHolder().length() == 0) continue;
+            int first = Integer.parseInt(statement.getYears().substring(0, 4));
+            int last = statement.getYears().length() > 4 ? Integer.parseInt(statement.getYears().substring(5)) : first;
+            if (last < first) {
+                int swap = first;
+                first = last;
+                last = swap;
+            }
+            for (int year=first; year<=last; year++) years.add(year);
+
+            String name = intern(statement.getHolder());
+            Holder holder = holders.get(name);
+            if (holder == null) {
+                holder = new Holder(name);
+                Holder added = holders.putIfAbsent(name, holder);
+                if (added != null) holder = added;
+            }
+            holder.add(className, statement.getEmail() == null ? null : intern(statement.getEmail()), first, last);
+        }
+        for (Integer year : years) {
+            LongAdder count = filesPerYear.get(year);
+            if (count == null) {
+                count = new LongAdder();
+                LongAdder added = filesPerYear.putIfAbsent(year, count);
+                if (added != null) count = added;
+            }
+            count.increment();
+        }
+    }
+
+    private String intern(String s) {
+        String interned = strings.putIfAbsent(s, s);
+        return interned == null ? s : interned;
+    }
+
+    /**
+     * @return the number of files added, without the generated files
+     */
+    public long getFileCount() {
+        return files.sum();
+    }
+
+    /**
+     * @return the holders, sorted by name
+     */
+    public List<Holder> getHolders() {
+        List<Holder> sorted = new ArrayList<Holder>(new TreeMap<String,Holder>(holders).values());
+        return Collections.unmodifiableList(sorted);
+    }
+
+    /**
+     * @param name the name of a holder
+     * @return the holder, or null if the name is in no file
+     */
+    public Holder getHolder(String name) {
+        return holders.get(name);
+    }
+
+    /**
+     * @return the number of files with a copyright in each year, by year
+     */
+    public SortedMap<Integer,Long> getFilesPerYear() {
+        SortedMap<Integer,Long> counts = new TreeMap<Integer,Long>();
+        for (Map.Entry<Integer,LongAdder> entry : filesPerYear.entrySet()) {
+            counts.put(entry.getKey(), entry.getValue().sum());
+        }
+        return counts;
+    }
+
+    /**
+     * @return the index as JSON, with one line per holder
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder();
+        json.append("{\n");
+        json.append("  \"files\": ").append(getFileCount()).append(",\n");
+        json.append("  \"holders\": [");
+        String separator = "\n";
+        for (Holder holder : getHolders()) {
+            json.append(separator)
+                .append("    { \"name\": ").append(Json.quote(holder.getName()))
+                .append(", \"firstYear\": ").append(holder.getFirstYear())
+                .append(", \"lastYear\": ").append(holder.getLastYear())
+                .append(", \"emails\": ");
+            appendArray(json, holder.getEmails());
+            json.append(", \"files\": ");
+            appendArray(json, holder.getFiles());
+            json.append(" }");
+            separator = ",\n";
+        }
+        json.append(holders.isEmpty() ? "],\n" : "\n  ],\n");
+        json.append("  \"filesPerYear\": {");
+        separator = " ";
+        for (Map.Entry<Integer,Long> entry : getFilesPerYear().entrySet()) {
+            json.append(separator).append('"').append(entry.getKey()).append("\": ").append(entry.getValue());
+            separator = ", ";
+        }
+        json.append(" }\n");
+        json.append("}\n");
+        return json.toString();
+    }
+
+    /**
+     * Writes the index as JSON.
+     *
+     * @param file the index file
+     * @throws IOException if the file could not be written
+     */
+    public void write(File file) throws IOException {
+        OutputFiles.writeIfChanged(file, toJson().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void appendArray(StringBuilder json, List<String> values) {
+        json.append('[');
+        for (int i=0; i<values.size(); i++) {
+            json.append(i == 0 ? "" : ", ").append(Json.quote(values.get(i)));
+        }
+        json.append(']');
+    }
+
+    /**
+     * A copyright holder with the files and years it holds a copyright for.
+     */
+    public static class Holder {
+
+        private final String          name;
+        private final TreeSet<String> emails = new TreeSet<String>();
+        private final TreeSet<String> files = new TreeSet<String>();
+        private int firstYear = Integer.MAX_VALUE;
+        private int lastYear = Integer.MIN_VALUE;
+
+        Holder(String name) {
+            this.name = name;
+        }
+
+        synchronized void add(String className, String email, int first, int last) {
+            files.add(className);
+            if (email != null) emails.add(email);
+            firstYear = Math.min(firstYear, first);
+            lastYear = Math.max(lastYear, last);
+        }
+
+        /**
+         * @return the name of the holder
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return the email addresses given with the name, sorted
+         */
+        public synchronized List<String> getEmails() {
+            return new ArrayList<String>(emails);
+        }
+
+        /**
+         * @return the classes of the files of the holder, sorted
+         */
+        public synchronized List<String> getFiles() {
+            return new ArrayList<String>(files);
+        }
+
+        /**
+         * @return the first year of a copyright of the holder
+         */
+        public synchronized int getFirstYear() {
+            return firstYear;
+        }
+
+        /**
+         * @return the last year of a copyright of the holder
+         */
+        public synchronized int getLastYear() {
+            return lastYear;
+        }
+    }
+}
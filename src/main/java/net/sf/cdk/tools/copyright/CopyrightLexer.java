@@ -0,0 +1,152 @@
+/* Copyright (C) 2026  The CDK Development Team <cdk-devel@lists.sourceforge.net>
+ *
+ * Contact: cdk-devel@lists.sourceforge.net
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 2.1
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package net.sf.cdk.tools.copyright;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import net.sf.cdk.tools.ByteLines;
+
+/**
+ * Splits a copyright line into year, holder and email, working on the
+ * UTF-8 bytes of the line. Only the holder and email are decoded. The
+ * result is the same as that of the regular expressions used before:
+ *
+ * <pre>
+ *   .*Copyright\s*\(C\)\s*(.*)    the last "Copyright (C)" of the line
+ *   (\d{4}-\d{4}).* or (\d{4}).*  the years, then skip one character
+ *   ([^&lt;]*).*                  the holder, then skip one character
+ *   &lt;([^&gt;]*).*              the email
+ * </pre>
+ *
+ * where every part is trimmed. The one difference: a character outside
+ * the Basic Multilingual Plane right after the years is skipped as a whole,
+ * where the expressions skipped only half of its surrogate pair.
+ */
+class CopyrightLexer {
+
+    private static final byte[] COPYRIGHT = ByteLines.ascii("Copyright");
+
+    /** Statement of a line that does not match at all. */
+    private static final CopyrightStatement NO_MATCH = new CopyrightStatement(null, null, null);
+
+    private CopyrightLexer() {}
+
+    /**
+     * Parses the copyright line [begin,end) of the buffer.
+     *
+     * @return the statement, with null fields for the parts not found
+     */
+    static CopyrightStatement lex(ByteBuffer buffer, int begin, int end) {
+        // '.' does not match these in a regular expression, so the line would not match
+        if (hasUnicodeLineTerminator(buffer, begin, end)) return NO_MATCH;
+
+        int s = -1;
+        for (int i = ByteLines.lastIndexOf(buffer, COPYRIGHT, begin, end); i != -1;
+             i = ByteLines.lastIndexOf(buffer, COPYRIGHT, begin, i + COPYRIGHT.length - 1)) {
+            int p = i + COPYRIGHT.length;
+            while (p < end && isRegexWhitespace(buffer.get(p))) p++;
+            if (p + 3 <= end && buffer.get(p) == '(' && buffer.get(p + 1) == 'C' && buffer.get(p + 2) == ')') {
+                s = p + 3;
+                break;
+            }
+        }
+        if (s == -1) return NO_MATCH;
+        int e = end;
+        s = trimStart(buffer, s, e);
+        while (e > s && isTrimmed(buffer.get(e - 1))) e--;
+
+        int yearsEnd;
+        if (isDigits(buffer, s, e) && s + 9 <= e && buffer.get(s + 4) == '-' && isDigits(buffer, s + 5, e)) {
+            yearsEnd = s + 9;
+        } else if (isDigits(buffer, s, e)) {
+            yearsEnd = s + 4;
+        } else {
+            return NO_MATCH;
+        }
+        String years = decode(buffer, s, yearsEnd);
+        s = yearsEnd < e ? trimStart(buffer, skipChar(buffer, yearsEnd, e), e) : e;
+
+        int holderEnd = s;
+        while (holderEnd < e && buffer.get(holderEnd) != '<') holderEnd++;
+        while (holderEnd > s && isTrimmed(buffer.get(holderEnd - 1))) holderEnd--;
+        String holder = decode(buffer, s, holderEnd);
+        s = holderEnd < e ? trimStart(buffer, skipChar(buffer, holderEnd, e), e) : e;
+
+        String email = null;
+        if (s < e && buffer.get(s) == '<') {
+            int emailEnd = s + 1;
+            while (emailEnd < e && buffer.get(emailEnd) != '>') emailEnd++;
+            int emailStart = trimStart(buffer, s + 1, emailEnd);
+            while (emailEnd > emailStart && isTrimmed(buffer.get(emailEnd - 1))) emailEnd--;
+            email = decode(buffer, emailStart, emailEnd);
+        }
+        return new CopyrightStatement(years, holder, email);
+    }
+
+    /** Same as \s in a regular expression. */
+    private static boolean isRegexWhitespace(byte b) {
+        return b == ' ' || (b >= 0x09 && b <= 0x0d);
+    }
+
+    /** Same as the characters removed by String.trim(). */
+    private static boolean isTrimmed(byte b) {
+        return b >= 0 && b <= ' ';
+    }
+
+    private static int trimStart(ByteBuffer buffer, int s, int e) {
+        while (s < e && isTrimmed(buffer.get(s))) s++;
+        return s;
+    }
+
+    private static boolean isDigits(ByteBuffer buffer, int s, int e) {
+        if (s + 4 > e) return false;
+        for (int i=s; i<s+4; i++) {
+            byte b = buffer.get(i);
+            if (b < '0' || b > '9') return false;
+        }
+        return true;
+    }
+
+    /** Skips the UTF-8 sequence of one character. */
+    private static int skipChar(ByteBuffer buffer, int s, int e) {
+        int b = buffer.get(s) & 0xff;
+        int length = b < 0xc0 ? 1 : b < 0xe0 ? 2 : b < 0xf0 ? 3 : 4;
+        return Math.min(s + length, e);
+    }
+
+    /** Looks for U+0085, U+2028 and U+2029. */
+    private static boolean hasUnicodeLineTerminator(ByteBuffer buffer, int begin, int end) {
+        for (int i=begin; i+1<end; i++) {
+            int b = buffer.get(i) & 0xff;
+            if (b == 0xc2 && (buffer.get(i + 1) & 0xff) == 0x85) return true;
+            if (b == 0xe2 && i + 2 < end && (buffer.get(i + 1) & 0xff) == 0x80 &&
+                ((buffer.get(i + 2) & 0xff) == 0xa8 || (buffer.get(i + 2) & 0xff) == 0xa9)) return true;
+        }
+        return false;
+    }
+
+    private static String decode(ByteBuffer buffer, int s, int e) {
+        byte[] bytes = new byte[e - s];
+        for (int i=0; i<bytes.length; i++) {
+            bytes[i] = buffer.get(s + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
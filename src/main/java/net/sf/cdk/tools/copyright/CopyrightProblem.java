@@ -0,0 +1,55 @@
+/* Copyright (C) 2026  The CDK Development Team <cdk-devel@lists.sourceforge.net>
+ *
+ * Contact: cdk-devel@lists.sourceforge.net
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 2.1
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package net.sf.cdk.tools.copyright;
+
+/**
+ * Problems found in the copyright statements of a source file.
+ */
+public enum CopyrightProblem {
+
+    MISSING_LINE("missing-copyright-line", "missing copyright line."),
+    MISSING_YEAR("missing-copyright-year", "missing copyright year."),
+    MISSING_HOLDER("missing-copyright-holder", "missing copyright holder name."),
+    NOT_LEGAL_ENTITY("not-a-legal-entity", "copyright is not a legal entity"),
+    MISSING_EMAIL("missing-holder-email", "copyright holder is not identified by an email address"),
+    MISSING_LICENSE("missing-license", "incorrect license, must be LGPL"),
+    MODIFIED_LICENSE("modified-license", "license text differs from the LGPL boilerplate");
+
+    private final String id;
+    private final String message;
+
+    private CopyrightProblem(String id, String message) {
+        this.id = id;
+        this.message = message;
+    }
+
+    /**
+     * @return a stable identifier, used as rule id in SARIF reports
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * @return the message printed for the problem
+     */
+    public String getMessage() {
+        return message;
+    }
+}
@@ -0,0 +1,224 @@
+/* Copyright (C) 2026  The CDK Development Team <cdk-devel@lists.sourceforge.net>
+ *
+ * Contact: cdk-devel@lists.sourceforge.net
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 2.1
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package net.sf.cdk.tools.copyright;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import net.sf.cdk.tools.Json;
+import net.sf.cdk.tools.OutputFiles;
+
+/**
+ * Collects the findings of a copyright audit. Files are added concurrently
+ * by the threads reading them, under the index of the file, and the findings
+ * are reported in file order. Besides plain text, reports can be written as
+ * JSON or as SARIF 2.1.0 for code scanning tools, both with the number of
+ * findings of each problem.
+ */
+public class CopyrightReport {
+
+    /** Report formats. */
+    public enum Format {
+        TEXT, JSON, SARIF;
+    }
+
+    private final ConcurrentSkipListMap<Integer,List<CopyrightFinding>> findings =
+        new ConcurrentSkipListMap<Integer,List<CopyrightFinding>>();
+    private final LongAdder   filesChecked = new LongAdder();
+    private final LongAdder[] counts = new LongAdder[CopyrightProblem.values().length];
+
+    public CopyrightReport() {
+        for (int i=0; i<counts.length; i++) {
+            counts[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Adds the findings of a checked file.
+     *
+     * @param index    position of the file in the audit
+     * @param findings the findings, possibly empty
+     */
+    void add(int index, List<CopyrightFinding> findings) {
+        filesChecked.increment();
+        if (findings.isEmpty()) return;
+        for (CopyrightFinding finding : findings) {
+            counts[finding.getProblem().ordinal()].increment();
+        }
+        this.findings.put(index, findings);
+    }
+
+    /**
+     * @return the number of files checked, without the generated files
+     */
+    public long getFilesChecked() {
+        return filesChecked.sum();
+    }
+
+    /**
+     * @param problem a problem
+     * @return the number of times the problem was found
+     */
+    public long getCount(CopyrightProblem problem) {
+        return counts[problem.ordinal()].sum();
+    }
+
+    /**
+     * @return all findings, in file order
+     */
+    public List<CopyrightFinding> getFindings() {
+        List<CopyrightFinding> all = new ArrayList<CopyrightFinding>();
+        for (List<CopyrightFinding> fileFindings : findings.values()) {
+            all.addAll(fileFindings);
+        }
+        return Collections.unmodifiableList(all);
+    }
+
+    /**
+     * Removes all findings and counts.
+     */
+    public void clear() {
+        findings.clear();
+        filesChecked.reset();
+        for (LongAdder count : counts) count.reset();
+    }
+
+    /**
+     * Prints the findings one per line, as "class: message".
+     *
+     * @param out the stream to print to
+     */
+    public void printText(PrintStream out) {
+        for (CopyrightFinding finding : getFindings()) {
+            out.println(finding);
+        }
+    }
+
+    /**
+     * @return the findings and counts as JSON
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder();
+        json.append("{\n");
+        json.append("  \"filesChecked\": ").append(getFilesChecked()).append(",\n");
+        json.append("  \"filesWithFindings\": ").append(findings.size()).append(",\n");
+        appendCounts(json, "  ");
+        json.append(",\n  \"findings\": [");
+        String separator = "\n";
+        for (CopyrightFinding finding : getFindings()) {
+            json.append(separator)
+                .append("    { \"path\": ").append(Json.quote(toURI(finding.getPath())))
+                .append(", \"class\": ").append(Json.quote(finding.getClassName()))
+                .append(", \"problem\": ").append(Json.quote(finding.getProblem().getId()))
+                .append(", \"message\": ").append(Json.quote(finding.getMessage()))
+                .append(" }");
+            separator = ",\n";
+        }
+        json.append(findings.isEmpty() ? "]\n" : "\n  ]\n");
+        json.append("}\n");
+        return json.toString();
+    }
+
+    /**
+     * @return the findings as a SARIF 2.1.0 log, with the counts as
+     *         properties of the run
+     */
+    public String toSarif() {
+        StringBuilder sarif = new StringBuilder();
+        sarif.append("{\n");
+        sarif.append("  \"$schema\": \"https://json.schemastore.org/sarif-2.1.0.json\",\n");
+        sarif.append("  \"version\": \"2.1.0\",\n");
+        sarif.append("  \"runs\": [ {\n");
+        sarif.append("    \"tool\": { \"driver\": {\n");
+        sarif.append("      \"name\": \"CheckCopyrightStatements\",\n");
+        sarif.append("      \"rules\": [");
+        for (CopyrightProblem problem : CopyrightProblem.values()) {
+            sarif.append(problem.ordinal() == 0 ? "\n" : ",\n")
+                 .append("        { \"id\": ").append(Json.quote(problem.getId()))
+                 .append(", \"shortDescription\": { \"text\": ").append(Json.quote(problem.getMessage()))
+                 .append(" } }");
+        }
+        sarif.append("\n      ]\n");
+        sarif.append("    } },\n");
+        sarif.append("    \"properties\": {\n");
+        sarif.append("      \"filesChecked\": ").append(getFilesChecked()).append(",\n");
+        appendCounts(sarif, "      ");
+        sarif.append("\n    },\n");
+        sarif.append("    \"results\": [");
+        String separator = "\n";
+        for (CopyrightFinding finding : getFindings()) {
+            CopyrightProblem problem = finding.getProblem();
+            sarif.append(separator)
+                 .append("      { \"ruleId\": ").append(Json.quote(problem.getId()))
+                 .append(", \"ruleIndex\": ").append(problem.ordinal())
+                 .append(", \"level\": \"warning\"")
+                 .append(", \"message\": { \"text\": ").append(Json.quote(finding.getMessage()))
+                 .append(" }, \"locations\": [ { \"physicalLocation\": { \"artifactLocation\": { \"uri\": ")
+                 .append(Json.quote(toURI(finding.getPath()))).append(" } } } ] }");
+            separator = ",\n";
+        }
+        sarif.append(findings.isEmpty() ? "]\n" : "\n    ]\n");
+        sarif.append("  } ]\n");
+        sarif.append("}\n");
+        return sarif.toString();
+    }
+
+    /**
+     * Writes the report in the given format.
+     *
+     * @param format the format
+     * @param file   the report file
+     * @throws IOException if the file could not be written
+     */
+    public void write(Format format, File file) throws IOException {
+        String content;
+        if (format == Format.JSON) {
+            content = toJson();
+        } else if (format == Format.SARIF) {
+            content = toSarif();
+        } else {
+            StringBuilder text = new StringBuilder();
+            for (CopyrightFinding finding : getFindings()) {
+                text.append(finding).append('\n');
+            }
+            content = text.toString();
+        }
+        OutputFiles.writeIfChanged(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void appendCounts(StringBuilder json, String indent) {
+        json.append(indent).append("\"counts\": {");
+        for (CopyrightProblem problem : CopyrightProblem.values()) {
+            json.append(problem.ordinal() == 0 ? " " : ", ")
+                .append(Json.quote(problem.getId())).append(": ").append(getCount(problem));
+        }
+        json.append(" }");
+    }
+
+    private static String toURI(String path) {
+        return path.replace(File.separatorChar, '/');
+    }
+}
@@ -0,0 +1,63 @@
+/* Copyright (C) 2026  The CDK Development Team <cdk-devel@lists.sourceforge.net>
+ *
+ * Contact: cdk-devel@lists.sourceforge.net
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 2.1
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package net.sf.cdk.tools.copyright;
+
+/**
+ * A copyright line of a source file header, like
+ * <code>Copyright (C) 2003-2007  Jane Doe &lt;jane@example.org&gt;</code>.
+ * Fields that could not be found are null.
+ */
+public class CopyrightStatement {
+
+    private final String years;
+    private final String holder;
+    private final String email;
+
+    CopyrightStatement(String years, String holder, String email) {
+        this.years = years;
+        this.holder = holder;
+        this.email = email;
+    }
+
+    /**
+     * @return the year, like 2003, or year range, like 2003-2007
+     */
+    public String getYears() {
+        return years;
+    }
+
+    /**
+     * @return the name of the copyright holder, possibly empty
+     */
+    public String getHolder() {
+        return holder;
+    }
+
+    /**
+     * @return the email address of the copyright holder
+     */
+    public String getEmail() {
+        return email;
+    }
+
+    @Override
+    public String toString() {
+        return "Copyright (C) " + years + " " + holder + " <" + email + ">";
+    }
+}
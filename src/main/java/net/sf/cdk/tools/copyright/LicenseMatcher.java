@@ -0,0 +1,217 @@
+/* Copyright (C) 2026  The CDK Development Team <cdk-devel@lists.sourceforge.net>
+ *
+ * Contact: cdk-devel@lists.sourceforge.net
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 2.1
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package net.sf.cdk.tools.copyright;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Looks for an accepted license text in the header lines of a source file.
+ * The lines are normalized while they are read: comment prefixes like
+ * <code>/*</code>, <code>*</code> and <code>//</code> are removed, and
+ * every run of whitespace, line breaks included, becomes a single space.
+ * A rolling hash over the normalized text is compared with the hash of each
+ * accepted text, and only a window with a matching hash is compared byte by
+ * byte. The texts are compared word by word only to describe a mismatch.
+ *
+ * <p>A matcher keeps the state of one file at a time, so each reading thread
+ * needs its own.
+ */
+class LicenseMatcher {
+
+    private static final String LGPL_START =
+        "This program is free software; you can redistribute it and/or modify it under the terms of the " +
+        "GNU Lesser General Public License as published by the Free Software Foundation; either version " +
+        "2.1 of the License, or (at your option) any later version.";
+    private static final String CREDIT =
+        " All we ask is that proper credit is given for our work, which includes - but is not limited to - " +
+        "adding the above copyright notice to the beginning of your source code files, and to any copyright " +
+        "notice that you may distribute with programs based on this work.";
+    private static final String LGPL_END =
+        " This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without " +
+        "even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU " +
+        "Lesser General Public License for more details. You should have received a copy of the GNU Lesser " +
+        "General Public License along with this program; if not, write to the Free Software Foundation,";
+
+    /**
+     * The accepted license texts, normalized: the CDK text, with or without
+     * the request for credit, and the FSF text for libraries. The address
+     * of the Free Software Foundation is left out, as it changed over the
+     * years.
+     */
+    private static final byte[][] ACCEPTED = {
+        utf8(LGPL_START + LGPL_END),
+        utf8(LGPL_START + CREDIT + LGPL_END),
+        utf8((LGPL_START + LGPL_END).replace("This program", "This library").replace("this program", "this library"))
+    };
+
+    private static final byte[] LGPL = "GNU Lesser General Public License".getBytes(StandardCharsets.UTF_8);
+
+    private static final long BASE = 1000003;
+
+    /** Hash of each accepted text. */
+    private static final long[] HASHES = new long[ACCEPTED.length];
+    /** BASE to the power of the length of each accepted text. */
+    private static final long[] POWERS = new long[ACCEPTED.length];
+
+    static {
+        for (int t=0; t<ACCEPTED.length; t++) {
+            long hash = 0;
+            long power = 1;
+            for (byte b : ACCEPTED[t]) {
+                hash = hash * BASE + (b & 0xff);
+                power *= BASE;
+            }
+            HASHES[t] = hash;
+            POWERS[t] = power;
+        }
+    }
+
+    private static byte[] utf8(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /** The normalized text of the file so far. */
+    private byte[] text = new byte[4096];
+    private int    length;
+    /** Rolling hash of the last bytes of the text, one per accepted text. */
+    private final long[] hashes = new long[ACCEPTED.length];
+    private boolean matched;
+
+    /**
+     * Starts a new file.
+     */
+    void reset() {
+        length = 0;
+        Arrays.fill(hashes, 0);
+        matched = false;
+    }
+
+    /**
+     * Adds the header line [begin,end) of the buffer.
+     */
+    void addLine(ByteBuffer buffer, int begin, int end) {
+        int s = begin;
+        while (s < end && isWhitespace(buffer.get(s))) s++;
+        while (s < end && (buffer.get(s) == '/' || buffer.get(s) == '*')) s++;
+        int e = end;
+        while (e > s && isWhitespace(buffer.get(e - 1))) e--;
+        if (e - 2 >= s && buffer.get(e - 2) == '*' && buffer.get(e - 1) == '/') e -= 2;
+
+        boolean space = length > 0;
+        for (int i=s; i<e; i++) {
+            byte b = buffer.get(i);
+            if (isWhitespace(b)) {
+                space = length > 0;
+            } else {
+                if (space) append((byte) ' ');
+                append(b);
+                space = false;
+            }
+        }
+    }
+
+    private void append(byte b) {
+        if (length == text.length) text = Arrays.copyOf(text, 2 * length);
+        text[length++] = b;
+        if (matched) return;
+        for (int t=0; t<ACCEPTED.length; t++) {
+            int size = ACCEPTED[t].length;
+            long hash = hashes[t] * BASE + (b & 0xff);
+            if (length > size) hash -= (text[length - size - 1] & 0xff) * POWERS[t];
+            hashes[t] = hash;
+            if (hash == HASHES[t] && length >= size && equals(ACCEPTED[t], length - size)) matched = true;
+        }
+    }
+
+    private boolean equals(byte[] accepted, int start) {
+        for (int i=0; i<accepted.length; i++) {
+            if (text[start + i] != accepted[i]) return false;
+        }
+        return true;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || (b >= 0x09 && b <= 0x0d);
+    }
+
+    /**
+     * @return true if an accepted license text was found
+     */
+    boolean matched() {
+        return matched;
+    }
+
+    /**
+     * @return true if the text mentions the GNU Lesser General Public License
+     */
+    boolean mentionsLGPL() {
+        next:
+        for (int i=0; i+LGPL.length<=length; i++) {
+            for (int j=0; j<LGPL.length; j++) {
+                if (text[i + j] != LGPL[j]) continue next;
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Compares the text word by word with the accepted text it has the most
+     * words in common with, from the start of the license on.
+     *
+     * @return where the text differs first, like
+     *         <code>expected "2.1" but found "2"</code>
+     */
+    String describeMismatch() {
+        String[] words = new String(text, 0, length, StandardCharsets.UTF_8).split(" ");
+        String[] best = null;
+        int bestStart = 0;
+        int bestCommon = -1;
+        for (byte[] accepted : ACCEPTED) {
+            String[] expected = new String(accepted, StandardCharsets.UTF_8).split(" ");
+            int start = 0;
+            // the license starts where its first words are
+            while (start < words.length && !(words[start].equals(expected[0]) &&
+                   start + 1 < words.length && words[start + 1].equals(expected[1]))) start++;
+            if (start == words.length) start = 0;
+            int common = 0;
+            while (common < expected.length && start + common < words.length &&
+                   words[start + common].equals(expected[common])) common++;
+            if (common > bestCommon) {
+                best = expected;
+                bestStart = start;
+                bestCommon = common;
+            }
+        }
+        int found = bestStart + bestCommon;
+        return "expected \"" + join(best, bestCommon, 5) + "\" but found \"" + join(words, found, 5) + "\"" +
+               (bestCommon > 0 ? " after \"" + join(best, Math.max(0, bestCommon - 5), Math.min(5, bestCommon)) + "\"" : "");
+    }
+
+    private static String join(String[] words, int from, int count) {
+        StringBuilder joined = new StringBuilder();
+        for (int i=from; i<words.length && i<from+count; i++) {
+            if (i > from) joined.append(' ');
+            joined.append(words[i]);
+        }
+        return joined.toString();
+    }
+}
@@ -24,20 +24,53 @@
  */
 package net.sf.cdk.tools.coverage;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileFilter;
-import java.io.FileReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import net.sf.cdk.tools.ByteLines;
+import net.sf.cdk.tools.ModuleIndex;
+
+/**
+ * Checks that every module has a test suite, a coverage test, and that the
+ * suite runs the coverage test. Each test directory is listed once into a
+ * hash set, so that checking a module costs no file system access, and the
+ * suites are read in parallel. All three checks are done in one pass.
+ *
+ * <p>Given JaCoCo XML reports, the line and branch coverage of each module
+ * is reported as well, and compared with minimum percentages.
+ */
 public class CheckModuleCoverage {
 
+	private static final String SUITE_DIR = "src/test/org/openscience/cdk/modulesuites";
+	private static final String COVERAGE_DIR = "src/test/org/openscience/cdk/coverage";
+
 	/** Modules that do no need to have a test suite */
 	List<String> blackList = new ArrayList<String>();
 	
 	List<String> modules = new ArrayList<String>();
 	
+	private int threads = Runtime.getRuntime().availableProcessors();
+	
+	private ModuleIndex index;
+	
+	/** Minimum percentages of covered lines and branches. */
+	private double minimumLineCoverage = 0.0;
+	private double minimumBranchCoverage = 0.0;
+	
 	private CheckModuleCoverage() {
 		blackList.add("builder3dtools");
 		blackList.add("interfaces");
@@ -48,28 +81,99 @@ public class CheckModuleCoverage {
 	}
 	
 	private void findModules() {
-		// construct a list of modules, assuming runDoclet has been run
-		File dir = new File("build");
-		File[] files = dir.listFiles(new JavaFilesFilter());
-		for (int i=0; i<files.length; i++) {
-			String name = files[i].getName();
-			if (!name.startsWith("test")) {
-				String module = name.substring(0, name.indexOf('.'));
-				if (!blackList.contains(module)) {
-					modules.add(module);
-				}
+		// construct a list of modules from the sources, reusing the source
+		// index runDoclet leaves in the build directory
+		new File("build").mkdirs();
+		index = ModuleIndex.scan("src/META-INF", "src/main", "build");
+		for (String module : index.getModules()) {
+			if (!module.startsWith("test") && !blackList.contains(module)) {
+				modules.add(module);
 			}
 		}
 		System.out.println("Number of modules found: " + modules.size());
 	}
 	
-	private void checkModuleSuites() {
+	/** What was found for a module. */
+	private static class ModuleStatus {
+		boolean hasSuite;
+		boolean hasCoverageTest;
+		/** Whether the suite runs the coverage test, null if the suite could not be read. */
+		Boolean suiteRunsCoverageTest;
+	}
+	
+	/**
+	 * Runs the checks of all modules.
+	 *
+	 * @return the status of each module, in the order of the modules
+	 */
+	private ModuleStatus[] checkModules() {
+		Set<String> suites = listDirectory(new File(SUITE_DIR));
+		Set<String> coverageTests = listDirectory(new File(COVERAGE_DIR));
+		final ModuleStatus[] status = new ModuleStatus[modules.size()];
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+		for (int i=0; i<modules.size(); i++) {
+			final String module = modules.get(i);
+			final ModuleStatus moduleStatus = new ModuleStatus();
+			status[i] = moduleStatus;
+			moduleStatus.hasSuite = suites.contains(getSuiteName(module));
+			moduleStatus.hasCoverageTest = coverageTests.contains(getCoverageTestName(module) + ".java");
+			if (moduleStatus.hasSuite) {
+				tasks.add(new Callable<Void>() {
+					@Override
+					public Void call() {
+						try {
+							moduleStatus.suiteRunsCoverageTest =
+							    suiteRunsCoverageTest(new File(SUITE_DIR, getSuiteName(module)), module);
+						} catch (IOException e) {
+							e.printStackTrace();
+						}
+						return null;
+					}
+				});
+			}
+		}
+		ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, tasks.size())));
+		try {
+			for (Future<Void> future : pool.invokeAll(tasks)) {
+				future.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while reading the module suites", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException(e.getCause());
+		} finally {
+			pool.shutdown();
+		}
+		return status;
+	}
+	
+	/** Names in the directory, or an empty set if it does not exist. */
+	private static Set<String> listDirectory(File dir) {
+		String[] names = dir.list();
+		if (names == null) return Collections.emptySet();
+		return new HashSet<String>(Arrays.asList(names));
+	}
+	
+	private static String getSuiteName(String module) {
+		return "M" + module + "Tests.java";
+	}
+	
+	private static String getCoverageTestName(String module) {
+		return module.substring(0,1).toUpperCase() + module.substring(1) + "CoverageTest";
+	}
+	
+	private static boolean suiteRunsCoverageTest(File suite, String module) throws IOException {
+		byte[] content = Files.readAllBytes(suite.toPath());
+		byte[] coverageTest = ByteLines.ascii(getCoverageTestName(module));
+		return ByteLines.indexOf(ByteBuffer.wrap(content), coverageTest, 0, content.length) != -1;
+	}
+	
+	private void checkModuleSuites(ModuleStatus[] status) {
 		int missingSuites = 0;
-		for (String module : modules) {
-			String expectedSuite = "src/test/org/openscience/cdk/modulesuites/M" +
-			    module + "Tests.java";
-			if (!new File(expectedSuite).exists()) {
-				System.out.println("No test suite found for: " + module);
+		for (int i=0; i<modules.size(); i++) {
+			if (!status[i].hasSuite) {
+				System.out.println("No test suite found for: " + modules.get(i));
 				missingSuites++;
 			}
 		}
@@ -78,34 +182,12 @@ public class CheckModuleCoverage {
 		}
 	}
 	
-  private void checkModuleSuiteContainsCoverageTest() {
+  private void checkModuleSuiteContainsCoverageTest(ModuleStatus[] status) {
       int missingCoverages = 0;
-      for (String module : modules) {
-          String expectedSuite = "src/test/org/openscience/cdk/modulesuites/M" +
-              module + "Tests.java";
-          File file = new File(expectedSuite);
-          boolean coverageTestFound = false;
-          if (file.exists()) {
-              try {
-                  BufferedReader reader = new BufferedReader(
-                      new FileReader(file)
-                  );
-                  String line = reader.readLine();
-                  while (line != null && !coverageTestFound) {
-                      if (line.contains(module.substring(0,1).toUpperCase() +
-                                        module.substring(1) + "CoverageTest")) {
-                          coverageTestFound = true;
-                      }
-                      line = reader.readLine();
-                  }
-                  if (!coverageTestFound) {
-                      System.out.println("Missing coverage test in suite: " + module);
-                      missingCoverages++;
-                  }
-                  reader.close();
-              } catch (Exception e) {
-                  e.printStackTrace();
-              }
+      for (int i=0; i<modules.size(); i++) {
+          if (Boolean.FALSE.equals(status[i].suiteRunsCoverageTest)) {
+              System.out.println("Missing coverage test in suite: " + modules.get(i));
+              missingCoverages++;
           }
       }
       if (missingCoverages > 0) {
@@ -113,14 +195,11 @@ public class CheckModuleCoverage {
       }
     }
     
-	private void checkCoverageTesting() {
+	private void checkCoverageTesting(ModuleStatus[] status) {
 		int missingCoverage = 0;
-		for (String module : modules) {
-			String expectedSuite = "src/test/org/openscience/cdk/coverage/" +
-			    module.substring(0,1).toUpperCase() +
-			    module.substring(1) + "CoverageTest.java";
-			if (!new File(expectedSuite).exists()) {
-				System.out.println("No code coverage checking found for: " + module);
+		for (int i=0; i<modules.size(); i++) {
+			if (!status[i].hasCoverageTest) {
+				System.out.println("No code coverage checking found for: " + modules.get(i));
 				missingCoverage++;
 			}
 		}
@@ -129,17 +208,81 @@ public class CheckModuleCoverage {
 		}
 	}
 	
+	private void checkMeasuredCoverage(List<File> reports) throws IOException {
+		JacocoCoverage coverage = new JacocoCoverage(index);
+		for (File report : reports) {
+			coverage.read(report);
+		}
+		int belowLines = 0;
+		int belowBranches = 0;
+		for (String module : modules) {
+			JacocoCoverage.Counts counts = coverage.getCounts(module);
+			if (counts == null) {
+				System.out.println("No coverage data found for: " + module);
+				continue;
+			}
+			System.out.println(String.format(Locale.ROOT,
+			    "Coverage of %s: lines %.1f%% (%d of %d), branches %.1f%% (%d of %d)", module,
+			    counts.getLineCoverage(), counts.getLinesCovered(),
+			    counts.getLinesCovered() + counts.getLinesMissed(),
+			    counts.getBranchCoverage(), counts.getBranchesCovered(),
+			    counts.getBranchesCovered() + counts.getBranchesMissed()));
+			if (counts.getLineCoverage() < minimumLineCoverage) {
+				System.out.println("Line coverage below " + minimumLineCoverage + "% for: " + module);
+				belowLines++;
+			}
+			if (counts.getBranchCoverage() < minimumBranchCoverage) {
+				System.out.println("Branch coverage below " + minimumBranchCoverage + "% for: " + module);
+				belowBranches++;
+			}
+		}
+		if (coverage.getUnmappedClasses() > 0) {
+			System.out.println("Classes in no module: " + coverage.getUnmappedClasses());
+		}
+		if (belowLines > 0) {
+			System.out.println("Modules below the line coverage minimum: " + belowLines);
+		}
+		if (belowBranches > 0) {
+			System.out.println("Modules below the branch coverage minimum: " + belowBranches);
+		}
+	}
+	
 	public static void main(String[] args) {
 	    CheckModuleCoverage checker = new CheckModuleCoverage();
+	    List<File> reports = new ArrayList<File>();
+	    for (int argc=0; argc<args.length; argc+=2) {
+	        if (argc+1 == args.length) {
+	            syntax();
+	        } else if (args[argc].equals("-threads")) {
+	            checker.threads = Integer.parseInt(args[argc+1]);
+	        } else if (args[argc].equals("-jacoco")) {
+	            reports.add(new File(args[argc+1]));
+	        } else if (args[argc].equals("-minline")) {
+	            checker.minimumLineCoverage = Double.parseDouble(args[argc+1]);
+	        } else if (args[argc].equals("-minbranch")) {
+	            checker.minimumBranchCoverage = Double.parseDouble(args[argc+1]);
+	        } else {
+	            syntax();
+	        }
+	    }
 	    checker.findModules();
-	    checker.checkModuleSuites();
-	    checker.checkCoverageTesting();
-	    checker.checkModuleSuiteContainsCoverageTest();
+	    ModuleStatus[] status = checker.checkModules();
+	    checker.checkModuleSuites(status);
+	    checker.checkCoverageTesting(status);
+	    checker.checkModuleSuiteContainsCoverageTest(status);
+	    if (!reports.isEmpty()) {
+	        try {
+	            checker.checkMeasuredCoverage(reports);
+	        } catch (IOException e) {
+	            System.out.println("Could not read the coverage reports: " + e.getMessage());
+	            System.exit(1);
+	        }
+	    }
     }
 	
-	class JavaFilesFilter implements FileFilter {
-		public boolean accept(File file) {
-			return file.getName().endsWith(".javafiles");
-        }		
+	private static void syntax() {
+	    System.out.println("Syntax: CheckModuleCoverage [-threads <n>] [-jacoco <report.xml>]...\n" +
+	                       "                            [-minline <percent>] [-minbranch <percent>]");
+	    System.exit(-1);
 	}
 }
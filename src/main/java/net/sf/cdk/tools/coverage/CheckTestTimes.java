@@ -0,0 +1,502 @@
+/* Copyright (C) 2026  The CDK Development Team <cdk-devel@lists.sourceforge.net>
+ *
+ * Contact: cdk-devel@lists.sourceforge.net
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 2.1
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package net.sf.cdk.tools.coverage;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import net.sf.cdk.tools.ModuleIndex;
+import net.sf.cdk.tools.OutputFiles;
+
+/**
+ * Sums the test times of the surefire <code>TEST-*.xml</code> reports per
+ * module, to find the modules that make the test phase long. The reports
+ * are read in parallel with a StAX cursor. The tests of a
+ * <code>M&lt;module&gt;Tests</code> suite belong to that module; other
+ * tests belong to the module of the class they test, found by removing the
+ * <code>Test</code> suffix of the test class and looking the class up in
+ * the module index of the main sources.
+ *
+ * <p>Besides the totals of each module, the slowest tests are reported, and
+ * the change in time of each module since a stored baseline.
+ */
+public class CheckTestTimes {
+
+    private static final String SUITE_PREFIX = "org.openscience.cdk.modulesuites.M";
+    private static final String SUITE_SUFFIX = "Tests";
+
+    /** Module of tests that could not be mapped to a module. */
+    static final String UNKNOWN_MODULE = "unknown";
+
+    private final ModuleIndex index;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int slowestCount = 10;
+
+    private final Map<String,ModuleTimes> modules = new TreeMap<String,ModuleTimes>();
+    private final PriorityQueue<TestTime> slowest = new PriorityQueue<TestTime>(11, TestTime.BY_TIME);
+
+    /**
+     * @param index the modules of the main sources, or null to map only
+     *              the tests run by module suites
+     */
+    public CheckTestTimes(ModuleIndex index) {
+        this.index = index;
+    }
+
+    /**
+     * @param threads number of reports read at the same time, at least one
+     */
+    public void setThreads(int threads) {
+        if (threads < 1)
+            throw new IllegalArgumentException("Need at least one thread: " + threads);
+        this.threads = threads;
+    }
+
+    /**
+     * @param slowestCount number of slowest tests to keep
+     */
+    public void setSlowestCount(int slowestCount) {
+        this.slowestCount = slowestCount;
+    }
+
+    /**
+     * Lists the surefire reports in a directory.
+     *
+     * @param dir the report directory, like target/surefire-reports
+     * @return the TEST-*.xml files, sorted
+     */
+    public static List<File> listReports(File dir) {
+        List<File> reports = new ArrayList<File>();
+        String[] names = dir.list();
+        if (names == null) return reports;
+        Arrays.sort(names);
+        for (String name : names) {
+            if (name.startsWith("TEST-") && name.endsWith(".xml")) reports.add(new File(dir, name));
+        }
+        return reports;
+    }
+
+    /**
+     * Reads the given reports and adds their times.
+     *
+     * @param reports the TEST-*.xml files
+     * @throws IOException if a report could not be read or parsed
+     */
+    public void read(List<File> reports) throws IOException {
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+        for (final File report : reports) {
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() throws IOException {
+                    read(report);
+                    return null;
+                }
+            });
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, tasks.size())));
+        try {
+            for (Future<Void> future : pool.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reading the test reports", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Reads a single report and adds its times.
+     *
+     * @param report a TEST-*.xml file
+     * @throws IOException if the report could not be read or parsed
+     */
+    public void read(File report) throws IOException {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+        Map<String,ModuleTimes> reportModules = new HashMap<String,ModuleTimes>();
+        List<TestTime> reportSlowest = new ArrayList<TestTime>();
+        InputStream in = new BufferedInputStream(new FileInputStream(report), 1 << 16);
+        try {
+            XMLStreamReader reader = factory.createXMLStreamReader(in);
+            try {
+                read(reader, reportModules, reportSlowest);
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("Could not parse " + report + ": " + e.getMessage(), e);
+        } finally {
+            in.close();
+        }
+        synchronized (this) {
+            for (Map.Entry<String,ModuleTimes> entry : reportModules.entrySet()) {
+                getModuleTimes(modules, entry.getKey()).add(entry.getValue());
+            }
+            for (TestTime test : reportSlowest) addSlowest(slowest, test);
+        }
+    }
+
+    private void read(XMLStreamReader reader, Map<String,ModuleTimes> reportModules,
+                      List<TestTime> reportSlowest) throws XMLStreamException {
+        PriorityQueue<TestTime> fileSlowest = new PriorityQueue<TestTime>(11, TestTime.BY_TIME);
+        String suiteModule = null;
+        ModuleTimes current = null;
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.END_ELEMENT && reader.getLocalName().equals("testcase")) current = null;
+            if (event != XMLStreamConstants.START_ELEMENT) continue;
+            String element = reader.getLocalName();
+            if (element.equals("testsuite")) {
+                suiteModule = getSuiteModule(reader.getAttributeValue(null, "name"));
+            } else if (element.equals("testcase")) {
+                String className = reader.getAttributeValue(null, "classname");
+                String module = suiteModule != null ? suiteModule : getTestModule(className);
+                current = getModuleTimes(reportModules, module);
+                current.tests++;
+                double time = parseTime(reader.getAttributeValue(null, "time"));
+                current.seconds += time;
+                String test = className == null ? reader.getAttributeValue(null, "name")
+                                                : className + "." + reader.getAttributeValue(null, "name");
+                addSlowest(fileSlowest, new TestTime(test, module, time));
+            } else if (current != null) {
+                if (element.equals("failure")) current.failures++;
+                else if (element.equals("error")) current.errors++;
+                else if (element.equals("skipped")) current.skipped++;
+            }
+        }
+        reportSlowest.addAll(fileSlowest);
+    }
+
+    /**
+     * @param suite the name of a test suite
+     * @return the module of the suite, or null if it is not a module suite
+     */
+    static String getSuiteModule(String suite) {
+        if (suite == null || !suite.startsWith(SUITE_PREFIX) || !suite.endsWith(SUITE_SUFFIX) ||
+            suite.length() <= SUITE_PREFIX.length() + SUITE_SUFFIX.length()) return null;
+        return suite.substring(SUITE_PREFIX.length(), suite.length() - SUITE_SUFFIX.length());
+    }
+
+    /**
+     * @param className a test class, like org.openscience.cdk.AtomTest
+     * @return the module of the class it tests, like the module of
+     *         org.openscience.cdk.Atom
+     */
+    private String getTestModule(String className) {
+        if (index == null || className == null || !className.endsWith("Test")) return UNKNOWN_MODULE;
+        String module = index.getModule(className.substring(0, className.length() - "Test".length()));
+        return module == null ? UNKNOWN_MODULE : module;
+    }
+
+    /** Parses a surefire time, which may have ',' as thousands separator. */
+    private static double parseTime(String time) {
+        if (time == null || time.length() == 0) return 0.0;
+        try {
+            return Double.parseDouble(time.replace(",", ""));
+        } catch (NumberFormatException e) {
+            return 0.0;
+        }
+    }
+
+    private static ModuleTimes getModuleTimes(Map<String,ModuleTimes> modules, String module) {
+        ModuleTimes times = modules.get(module);
+        if (times == null) {
+            times = new ModuleTimes();
+            modules.put(module, times);
+        }
+        return times;
+    }
+
+    /** Keeps the test if it is one of the slowest, in a queue with the fastest first. */
+    private void addSlowest(PriorityQueue<TestTime> queue, TestTime test) {
+        if (queue.size() < slowestCount) {
+            queue.add(test);
+        } else if (slowestCount > 0 && TestTime.BY_TIME.compare(test, queue.peek()) > 0) {
+            queue.poll();
+            queue.add(test);
+        }
+    }
+
+    /**
+     * @return the times of each module, by module name
+     */
+    public synchronized Map<String,ModuleTimes> getModuleTimes() {
+        return Collections.unmodifiableMap(new TreeMap<String,ModuleTimes>(modules));
+    }
+
+    /**
+     * @return the slowest tests, the slowest first
+     */
+    public synchronized List<TestTime> getSlowestTests() {
+        List<TestTime> tests = new ArrayList<TestTime>(slowest);
+        Collections.sort(tests, Collections.reverseOrder(TestTime.BY_TIME));
+        return tests;
+    }
+
+    /**
+     * Reads the module times of a baseline written by {@link #writeBaseline(File)}.
+     *
+     * @param file the baseline
+     * @return the seconds of each module
+     * @throws IOException if the file could not be read
+     */
+    public static Map<String,Double> readBaseline(File file) throws IOException {
+        Map<String,Double> baseline = new HashMap<String,Double>();
+        BufferedReader reader = new BufferedReader(new FileReader(file));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split("\t");
+                if (fields.length == 3) baseline.put(fields[0], Double.parseDouble(fields[2]));
+            }
+        } finally {
+            reader.close();
+        }
+        return baseline;
+    }
+
+    /**
+     * Writes the module times as baseline for later runs, one module per
+     * line, with tab separated name, number of tests and seconds.
+     *
+     * @param file the baseline file
+     * @throws IOException if the file could not be written
+     */
+    public void writeBaseline(File file) throws IOException {
+        StringBuilder baseline = new StringBuilder();
+        for (Map.Entry<String,ModuleTimes> entry : getModuleTimes().entrySet()) {
+            baseline.append(entry.getKey()).append('\t').append(entry.getValue().tests).append('\t')
+                    .append(String.format(Locale.ROOT, "%.3f", entry.getValue().seconds)).append('\n');
+        }
+        OutputFiles.writeIfChanged(file, baseline.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Prints the totals of each module, like tools/extractTestStats.bsh did,
+     * with the change since the baseline if given, and the slowest tests.
+     *
+     * @param baseline the seconds of each module in an earlier run, or null
+     */
+    public void printReport(Map<String,Double> baseline) {
+        ModuleTimes total = new ModuleTimes();
+        for (Map.Entry<String,ModuleTimes> entry : getModuleTimes().entrySet()) {
+            ModuleTimes times = entry.getValue();
+            StringBuilder line = new StringBuilder(entry.getKey()).append(": ").append(times);
+            if (baseline != null) {
+                Double before = baseline.get(entry.getKey());
+                if (before == null) {
+                    line.append(" (new)");
+                } else {
+                    double delta = times.seconds - before;
+                    line.append(String.format(Locale.ROOT, " (%+.3f secs", delta));
+                    if (before > 0) line.append(String.format(Locale.ROOT, ", %+.1f%%", 100 * delta / before));
+                    line.append(')');
+                }
+            }
+            System.out.println(line);
+            total.add(times);
+        }
+        System.out.println();
+        System.out.println("total: " + total);
+        List<TestTime> tests = getSlowestTests();
+        if (!tests.isEmpty()) {
+            System.out.println();
+            System.out.println("slowest tests:");
+            for (TestTime test : tests) {
+                System.out.println(String.format(Locale.ROOT, "%10.3f secs  %s (%s)",
+                                                 test.getSeconds(), test.getName(), test.getModule()));
+            }
+        }
+    }
+
+    /**
+     * Number of tests and time of a module.
+     */
+    public static class ModuleTimes {
+
+        int tests;
+        int failures;
+        int errors;
+        int skipped;
+        double seconds;
+
+        void add(ModuleTimes times) {
+            tests += times.tests;
+            failures += times.failures;
+            errors += times.errors;
+            skipped += times.skipped;
+            seconds += times.seconds;
+        }
+
+        public int getTests() {
+            return tests;
+        }
+
+        public int getFailures() {
+            return failures;
+        }
+
+        public int getErrors() {
+            return errors;
+        }
+
+        public int getSkipped() {
+            return skipped;
+        }
+
+        public double getSeconds() {
+            return seconds;
+        }
+
+        @Override
+        public String toString() {
+            return "run=" + tests + " failed=" + failures + " error=" + errors + " skipped=" + skipped +
+                   String.format(Locale.ROOT, " time=%.3f secs", seconds);
+        }
+    }
+
+    /**
+     * The time of a single test.
+     */
+    public static class TestTime {
+
+        /** Orders by time, and by name for tests that took as long. */
+        static final Comparator<TestTime> BY_TIME = new Comparator<TestTime>() {
+            @Override
+            public int compare(TestTime a, TestTime b) {
+                int cmp = Double.compare(a.seconds, b.seconds);
+                return cmp != 0 ? cmp : b.name.compareTo(a.name);
+            }
+        };
+
+        private final String name;
+        private final String module;
+        private final double seconds;
+
+        TestTime(String name, String module, double seconds) {
+            this.name = name;
+            this.module = module;
+            this.seconds = seconds;
+        }
+
+        /**
+         * @return the test method, like org.openscience.cdk.AtomTest.testClone
+         */
+        public String getName() {
+            return name;
+        }
+
+        public String getModule() {
+            return module;
+        }
+
+        public double getSeconds() {
+            return seconds;
+        }
+    }
+
+    public static void main(String[] args) {
+        int threads = Runtime.getRuntime().availableProcessors();
+        int slowestCount = 10;
+        boolean useIndex = true;
+        String baseline = null;
+        String save = null;
+        int argc = 0;
+        while (argc < args.length && args[argc].startsWith("-")) {
+            if (args[argc].equals("-noindex")) {
+                useIndex = false;
+                argc++;
+            } else if (argc+1 == args.length) {
+                syntax();
+            } else if (args[argc].equals("-threads")) {
+                threads = Integer.parseInt(args[argc+1]);
+                argc += 2;
+            } else if (args[argc].equals("-slowest")) {
+                slowestCount = Integer.parseInt(args[argc+1]);
+                argc += 2;
+            } else if (args[argc].equals("-baseline")) {
+                baseline = args[argc+1];
+                argc += 2;
+            } else if (args[argc].equals("-save")) {
+                save = args[argc+1];
+                argc += 2;
+            } else {
+                syntax();
+            }
+        }
+        if (argc == args.length) syntax();
+
+        ModuleIndex index = null;
+        if (useIndex) {
+            new File("build").mkdirs();
+            index = ModuleIndex.scan("src/META-INF", "src/main", "build");
+        }
+        CheckTestTimes checker = new CheckTestTimes(index);
+        checker.setThreads(threads);
+        checker.setSlowestCount(slowestCount);
+        try {
+            List<File> reports = new ArrayList<File>();
+            for (int i=argc; i<args.length; i++) reports.addAll(listReports(new File(args[i])));
+            checker.read(reports);
+            checker.printReport(baseline == null ? null : readBaseline(new File(baseline)));
+            if (save != null) checker.writeBaseline(new File(save));
+        } catch (IOException e) {
+            System.out.println("Could not read the test reports: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static void syntax() {
+        System.out.println("Syntax: CheckTestTimes [-threads <n>] [-slowest <n>] [-noindex] [-baseline <file>]\n" +
+                           "                       [-save <file>] <reportDir>...");
+        System.exit(-1);
+    }
+}
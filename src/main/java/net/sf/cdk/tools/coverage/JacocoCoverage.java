@@ -0,0 +1,210 @@
+/* Copyright (C) 2026  The CDK Development Team <cdk-devel@lists.sourceforge.net>
+ *
+ * Contact: cdk-devel@lists.sourceforge.net
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 2.1
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package net.sf.cdk.tools.coverage;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import net.sf.cdk.tools.ModuleIndex;
+
+/**
+ * Line and branch coverage of each module, from JaCoCo XML reports. The
+ * reports are read with a StAX cursor, so memory use does not depend on the
+ * size of a report. Only the counters of the classes are used: a class
+ * counts for the module of its source file, as listed in the .javafiles.
+ */
+public class JacocoCoverage {
+
+    private final ModuleIndex index;
+    private final Map<String,Counts> modules = new HashMap<String,Counts>();
+    private long unmappedClasses = 0;
+
+    /**
+     * @param index the modules of the source tree
+     */
+    public JacocoCoverage(ModuleIndex index) {
+        this.index = index;
+    }
+
+    /**
+     * Adds the class counters of a JaCoCo XML report. The report DTD is not
+     * loaded.
+     *
+     * @param report the report file
+     * @throws IOException if the report could not be read or parsed
+     */
+    public void read(File report) throws IOException {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+        InputStream in = new BufferedInputStream(new FileInputStream(report), 1 << 16);
+        try {
+            XMLStreamReader reader = factory.createXMLStreamReader(in);
+            try {
+                read(reader);
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("Could not parse " + report + ": " + e.getMessage(), e);
+        } finally {
+            in.close();
+        }
+    }
+
+    private void read(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 0;
+        // depth of the class element being read, or -1 outside a class
+        int classDepth = -1;
+        Counts counts = null;
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+                String element = reader.getLocalName();
+                if (classDepth == -1 && element.equals("class")) {
+                    classDepth = depth;
+                    counts = getModuleCounts(toSourceClass(reader.getAttributeValue(null, "name"),
+                                                           reader.getAttributeValue(null, "sourcefilename")));
+                } else if (depth == classDepth + 1 && counts != null && element.equals("counter")) {
+                    String type = reader.getAttributeValue(null, "type");
+                    long missed = Long.parseLong(reader.getAttributeValue(null, "missed"));
+                    long covered = Long.parseLong(reader.getAttributeValue(null, "covered"));
+                    if ("LINE".equals(type)) {
+                        counts.linesMissed += missed;
+                        counts.linesCovered += covered;
+                    } else if ("BRANCH".equals(type)) {
+                        counts.branchesMissed += missed;
+                        counts.branchesCovered += covered;
+                    }
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                if (depth == classDepth) {
+                    classDepth = -1;
+                    counts = null;
+                }
+                depth--;
+            }
+        }
+    }
+
+    /**
+     * @param className      the class name in the report, like org/openscience/cdk/Atom$1
+     * @param sourceFileName the source file of the class, like Atom.java, or null
+     * @return the class of the source file, like org.openscience.cdk.Atom
+     */
+    static String toSourceClass(String className, String sourceFileName) {
+        String sourceClass;
+        if (sourceFileName != null && sourceFileName.endsWith(".java")) {
+            int slash = className.lastIndexOf('/');
+            sourceClass = className.substring(0, slash + 1) +
+                          sourceFileName.substring(0, sourceFileName.length() - ".java".length());
+        } else {
+            int dollar = className.indexOf('$');
+            sourceClass = dollar == -1 ? className : className.substring(0, dollar);
+        }
+        return sourceClass.replace('/', '.');
+    }
+
+    /** @return the counts of the module of the class, or null if it is in no module */
+    private Counts getModuleCounts(String sourceClass) {
+        String module = index.getModule(sourceClass);
+        if (module == null) {
+            unmappedClasses++;
+            return null;
+        }
+        Counts counts = modules.get(module);
+        if (counts == null) {
+            counts = new Counts();
+            modules.put(module, counts);
+        }
+        return counts;
+    }
+
+    /**
+     * @param module the module name
+     * @return the coverage of the module, or null if no class of the
+     *         module was in the reports
+     */
+    public Counts getCounts(String module) {
+        return modules.get(module);
+    }
+
+    /**
+     * @return the number of classes in the reports that are in no module
+     */
+    public long getUnmappedClasses() {
+        return unmappedClasses;
+    }
+
+    /**
+     * Covered and missed lines and branches of a module.
+     */
+    public static class Counts {
+
+        long linesMissed;
+        long linesCovered;
+        long branchesMissed;
+        long branchesCovered;
+
+        public long getLinesMissed() {
+            return linesMissed;
+        }
+
+        public long getLinesCovered() {
+            return linesCovered;
+        }
+
+        public long getBranchesMissed() {
+            return branchesMissed;
+        }
+
+        public long getBranchesCovered() {
+            return branchesCovered;
+        }
+
+        /**
+         * @return the percentage of lines covered, 100 if there are no lines
+         */
+        public double getLineCoverage() {
+            return percentage(linesCovered, linesMissed);
+        }
+
+        /**
+         * @return the percentage of branches covered, 100 if there are no branches
+         */
+        public double getBranchCoverage() {
+            return percentage(branchesCovered, branchesMissed);
+        }
+
+        private static double percentage(long covered, long missed) {
+            return covered + missed == 0 ? 100.0 : 100.0 * covered / (covered + missed);
+        }
+    }
+}
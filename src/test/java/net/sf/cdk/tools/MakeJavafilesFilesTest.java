@@ -0,0 +1,148 @@
+/* Copyright (C) 2026  The CDK Development Team <cdk-devel@lists.sourceforge.net>
+ *
+ * Contact: cdk-devel@lists.sourceforge.net
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 2.1
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package net.sf.cdk.tools;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MakeJavafilesFilesTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testFewerShardsRemovesOldShards() throws IOException {
+        File metainf = folder.newFolder("META-INF");
+        File source = folder.newFolder("src");
+        File output = folder.newFolder("build");
+        for (int i=0; i<6; i++) {
+            addClass(source, "C" + i, "core");
+        }
+
+        run(metainf, source, output, 3);
+        for (int shard=1; shard<=3; shard++) {
+            assertTrue(new File(output, "core.javafiles." + shard).exists());
+        }
+
+        run(metainf, source, output, 1);
+        assertEquals(6, Files.readAllLines(new File(output, "core.javafiles").toPath()).size());
+        for (int shard=1; shard<=3; shard++) {
+            assertFalse(new File(output, "core.javafiles." + shard).exists());
+        }
+    }
+
+    @Test
+    public void testEmptiedModuleRemovesShards() throws IOException {
+        File metainf = folder.newFolder("META-INF");
+        File source = folder.newFolder("src");
+        File output = folder.newFolder("build");
+        addClass(source, "A", "core");
+        File b = addClass(source, "B", "io");
+        File c = addClass(source, "C", "io");
+
+        MakeJavafilesFiles processor = run(metainf, source, output, 2);
+        assertTrue(new File(output, "io.javafiles.2").exists());
+
+        b.delete();
+        c.delete();
+        processor.updateJavaSourceFiles(Arrays.asList(b, c));
+        assertEquals(0, new File(output, "io.javafiles").length());
+        assertFalse(new File(output, "io.javafiles.1").exists());
+        assertFalse(new File(output, "io.javafiles.2").exists());
+    }
+
+    @Test
+    public void testReprocessEmptiesRemovedModule() throws IOException {
+        File metainf = folder.newFolder("META-INF");
+        File source = folder.newFolder("src");
+        File output = folder.newFolder("build");
+        addClass(source, "A", "core");
+        File b = addClass(source, "B", "io");
+
+        MakeJavafilesFiles processor = run(metainf, source, output, 1);
+        assertEquals(1, Files.readAllLines(new File(output, "io.javafiles").toPath()).size());
+
+        b.delete();
+        processor.reprocessJavaSourceFiles(source);
+        assertEquals(0, new File(output, "io.javafiles").length());
+        assertEquals(0, new File(output, "io.classes").length());
+        assertEquals(1, Files.readAllLines(new File(output, "core.javafiles").toPath()).size());
+    }
+
+    @Test
+    public void testUnchangedBrokenFileIsNotReadAgain() throws IOException {
+        File metainf = folder.newFolder("META-INF");
+        File source = folder.newFolder("src");
+        File output = folder.newFolder("build");
+        File good = addClass(source, "A", "core");
+        File broken = new File(good.getParentFile(), "Broken.java");
+        Files.write(broken.toPath(), "/** no declaration */\n".getBytes(StandardCharsets.UTF_8));
+        // older than the modification time granularity of the index
+        long old = System.currentTimeMillis() - 60000;
+        good.setLastModified(old);
+        broken.setLastModified(old);
+
+        MakeJavafilesFiles processor = new MakeJavafilesFiles(metainf.getPath(), source.getPath(), output.getPath());
+        processor.processJavaSourceFiles(source);
+        ScanStatistics statistics = new ScanStatistics();
+        processor = new MakeJavafilesFiles(metainf.getPath(), source.getPath(), output.getPath());
+        processor.setStatistics(statistics);
+        processor.processJavaSourceFiles(source);
+        assertEquals(0, statistics.getFilesRead());
+
+        addClass(source, "Broken", "core");
+        broken.setLastModified(old + 1000);
+        processor.processJavaSourceFiles(source);
+        assertEquals(1, statistics.getFilesRead());
+        processor.outputResults();
+        assertEquals(2, Files.readAllLines(new File(output, "core.javafiles").toPath()).size());
+    }
+
+    private MakeJavafilesFiles run(File metainf, File source, File output, int shards) {
+        MakeJavafilesFiles processor = new MakeJavafilesFiles(metainf.getPath(), source.getPath(), output.getPath());
+        processor.setUseIndex(false);
+        processor.setShards(shards);
+        processor.setMinimumShardSize(1);
+        processor.processJavaSourceFiles(source);
+        processor.outputResults();
+        return processor;
+    }
+
+    private File addClass(File source, String name, String module) throws IOException {
+        File dir = new File(source, "org/example");
+        dir.mkdirs();
+        File file = new File(dir, name + ".java");
+        String content = "package org.example;\n\n" +
+                         "/**\n * @cdk.module " + module + "\n */\n" +
+                         "public class " + name + " {}\n";
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}